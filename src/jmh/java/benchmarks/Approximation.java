@@ -0,0 +1,27 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Level;
+
+/* Secondary JMH counters recording the quality of the matchings returned during an iteration: the approximation ratio
+ * of a benchmark is matchedEdges / maximumEdges, both summed over the same invocations. */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+public class Approximation {
+    public long matchedEdges;
+    public long maximumEdges;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        matchedEdges = 0;
+        maximumEdges = 0;
+    }
+
+    void record(int matchingSize, int maximumMatchingSize) {
+        matchedEdges += matchingSize;
+        maximumEdges += maximumMatchingSize;
+    }
+}
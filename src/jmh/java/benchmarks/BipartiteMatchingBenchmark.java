@@ -0,0 +1,99 @@
+package benchmarks;
+
+import org.jgrapht.Graph;
+import org.jgrapht.alg.matching.HopcroftKarpMaximumCardinalityBipartiteMatching;
+import org.jgrapht.generate.GnpRandomBipartiteGraphGenerator;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.SimpleGraph;
+import org.jgrapht.util.SupplierUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/* Throughput and approximation ratio of ALT, McGregor and the greedy maximal matching on bipartite random graphs.
+ * Families: "gnp" is the random bipartite G(n, n, p) of GraphUtils.generateRandomBipartiteGraph, and "planted" is the
+ * same graph with a perfect matching planted between the two partitions, as in Performance.testALTWithPlantedMatching.
+ * The maximum matching is computed with Hopcroft-Karp. Run with -prof gc for allocation rates. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(2)
+public class BipartiteMatchingBenchmark {
+    @Param({"gnp", "planted"})
+    public String family;
+
+    @Param({"1000", "10000"})
+    public int n; // size of each partition
+
+    @Param({"0.0006", "0.002"})
+    public double density;
+
+    @Param({"0.5", "0.2", "0.1"})
+    public double eps;
+
+    @Param({"10"})
+    public long mcGregorPhases;
+
+    private Graph<Integer, DefaultEdge> graph;
+    private List<DefaultEdge> stream;
+    private int maximumMatchingSize;
+    private Object alt;
+    private Object mcGregor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        Supplier<Integer> vSupplier = new Supplier<>() {
+            private int id = 0;
+
+            @Override
+            public Integer get() {
+                return id++;
+            }
+        };
+        graph = new SimpleGraph<>(vSupplier, SupplierUtil.createDefaultEdgeSupplier(), false);
+        GnpRandomBipartiteGraphGenerator<Integer, DefaultEdge> generator =
+                new GnpRandomBipartiteGraphGenerator<>(n, n, density, 42);
+        generator.generateGraph(graph);
+        if (family.equals("planted")) {
+            Iterator<Integer> second = generator.getSecondPartition().iterator();
+            for (int v : generator.getFirstPartition()) {
+                graph.addEdge(v, second.next());
+            }
+        } else if (!family.equals("gnp")) {
+            throw new IllegalArgumentException("Unknown graph family " + family);
+        }
+        stream = new ArrayList<>(graph.edgeSet());
+        maximumMatchingSize = new HopcroftKarpMaximumCardinalityBipartiteMatching<>(graph,
+                generator.getFirstPartition(), generator.getSecondPartition()).getMatching().getEdges().size();
+        alt = Matchers.newALT(stream);
+        mcGregor = Matchers.newMcGregor(stream);
+    }
+
+    @Benchmark
+    public Set<DefaultEdge> alt(Approximation approximation) throws Throwable {
+        Set<DefaultEdge> matching = Matchers.alt(alt, eps);
+        approximation.record(matching.size(), maximumMatchingSize);
+        return matching;
+    }
+
+    @Benchmark
+    public Set<DefaultEdge> mcGregor(Approximation approximation) throws Throwable {
+        Set<DefaultEdge> matching = Matchers.mcGregor(mcGregor, eps, mcGregorPhases);
+        approximation.record(matching.size(), maximumMatchingSize);
+        return matching;
+    }
+
+    @Benchmark
+    public Set<DefaultEdge> greedy(Approximation approximation) throws Throwable {
+        Set<DefaultEdge> matching = Matchers.greedy(stream, graph);
+        approximation.record(matching.size(), maximumMatchingSize);
+        return matching;
+    }
+}
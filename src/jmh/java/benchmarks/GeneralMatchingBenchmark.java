@@ -0,0 +1,87 @@
+package benchmarks;
+
+import org.jgrapht.Graph;
+import org.jgrapht.alg.matching.DenseEdmondsMaximumCardinalityMatching;
+import org.jgrapht.generate.GnpRandomGraphGenerator;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.SimpleGraph;
+import org.jgrapht.util.SupplierUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/* Throughput and approximation ratio of McGregor and the greedy maximal matching on general random graphs. Families:
+ * "gnp" is G(n, p) as in Performance.testMcGregorWithErdosRenyi, and "planted" is G(n, p) with a perfect matching
+ * planted on it, as in Performance.testMcGregorWithPlantedMatching. The maximum matching is computed with Edmonds'
+ * algorithm. Run with -prof gc for allocation rates. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(2)
+public class GeneralMatchingBenchmark {
+    @Param({"gnp", "planted"})
+    public String family;
+
+    @Param({"100", "1000"})
+    public int n;
+
+    @Param({"0.002", "0.008"})
+    public double density;
+
+    @Param({"0.5"})
+    public double eps;
+
+    @Param({"10"})
+    public long mcGregorPhases;
+
+    private Graph<Integer, DefaultEdge> graph;
+    private List<DefaultEdge> stream;
+    private int maximumMatchingSize;
+    private Object mcGregor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        Supplier<Integer> vSupplier = new Supplier<>() {
+            private int id = 0;
+
+            @Override
+            public Integer get() {
+                return id++;
+            }
+        };
+        graph = new SimpleGraph<>(vSupplier, SupplierUtil.createDefaultEdgeSupplier(), false);
+        new GnpRandomGraphGenerator<Integer, DefaultEdge>(n, density, 42).generateGraph(graph);
+        if (family.equals("planted")) {
+            for (int v = 0; v + 1 < n; v += 2) {
+                if (!graph.containsEdge(v, v + 1)) {
+                    graph.addEdge(v, v + 1);
+                }
+            }
+        } else if (!family.equals("gnp")) {
+            throw new IllegalArgumentException("Unknown graph family " + family);
+        }
+        stream = new ArrayList<>(graph.edgeSet());
+        maximumMatchingSize = new DenseEdmondsMaximumCardinalityMatching<>(graph).getMatching().getEdges().size();
+        mcGregor = Matchers.newMcGregor(stream);
+    }
+
+    @Benchmark
+    public Set<DefaultEdge> mcGregor(Approximation approximation) throws Throwable {
+        Set<DefaultEdge> matching = Matchers.mcGregor(mcGregor, eps, mcGregorPhases);
+        approximation.record(matching.size(), maximumMatchingSize);
+        return matching;
+    }
+
+    @Benchmark
+    public Set<DefaultEdge> greedy(Approximation approximation) throws Throwable {
+        Set<DefaultEdge> matching = Matchers.greedy(stream, graph);
+        approximation.record(matching.size(), maximumMatchingSize);
+        return matching;
+    }
+}
@@ -0,0 +1,108 @@
+package benchmarks;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultEdge;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+import java.util.Set;
+
+/* The matching algorithms live in the unnamed package, which code in a named package cannot import, while JMH refuses
+ * to generate benchmarks for classes in the unnamed package. This bridge binds their entry points by name once, with
+ * method handles; the indirection costs nanoseconds against runs that take milliseconds. */
+final class Matchers {
+    private static final MethodHandle NEW_ALT;
+    private static final MethodHandle ALT_MATCHING;
+    private static final MethodHandle NEW_MCGREGOR;
+    private static final MethodHandle MCGREGOR_MATCHING;
+    private static final MethodHandle UNLIMITED_BUDGET;
+    private static final MethodHandle WITH_MAX_PHASES;
+    private static final MethodHandle GREEDY_MATCHING;
+    private static final MethodHandle NEW_ARRAY_STREAM;
+    private static final MethodHandle SPLIT_BIPARTITION;
+    private static final MethodHandle NEW_STORED_ALT;
+    private static final MethodHandle ALT_INT_MATCHING;
+    private static final MethodHandle HEAP_STORE;
+    private static final MethodHandle OFF_HEAP_STORE;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> alt = Class.forName("ALT");
+            Class<?> mcGregor = Class.forName("McGregor");
+            Class<?> passBudget = Class.forName("PassBudget");
+            Class<?> graphUtils = Class.forName("GraphUtils");
+            NEW_ALT = lookup.findConstructor(alt, MethodType.methodType(void.class, List.class));
+            ALT_MATCHING = lookup.findVirtual(alt, "findApproximateMaxMatching",
+                    MethodType.methodType(Set.class, double.class));
+            NEW_MCGREGOR = lookup.findConstructor(mcGregor, MethodType.methodType(void.class, List.class));
+            MCGREGOR_MATCHING = lookup.findVirtual(mcGregor, "findApproximateMaxMatching",
+                    MethodType.methodType(Set.class, double.class, passBudget));
+            UNLIMITED_BUDGET = lookup.findStatic(passBudget, "unlimited", MethodType.methodType(passBudget));
+            WITH_MAX_PHASES = lookup.findVirtual(passBudget, "withMaxPhases",
+                    MethodType.methodType(passBudget, long.class));
+            GREEDY_MATCHING = lookup.findStatic(graphUtils, "findMaximalMatching",
+                    MethodType.methodType(Set.class, List.class, Graph.class));
+            Class<?> edgeStream = Class.forName("EdgeStream");
+            Class<?> bipartition = Class.forName("Bipartition");
+            Class<?> vertexStore = Class.forName("VertexStore");
+            NEW_ARRAY_STREAM = lookup.findConstructor(Class.forName("ArrayEdgeStream"),
+                    MethodType.methodType(void.class, int[].class, int[].class, int.class));
+            SPLIT_BIPARTITION = lookup.findStatic(bipartition, "split",
+                    MethodType.methodType(bipartition, int.class, int.class));
+            NEW_STORED_ALT = lookup.findConstructor(alt,
+                    MethodType.methodType(void.class, edgeStream, bipartition, vertexStore));
+            ALT_INT_MATCHING = lookup.findVirtual(alt, "findApproximateIntMatching",
+                    MethodType.methodType(Class.forName("IntMatching"), double.class));
+            HEAP_STORE = lookup.findStaticGetter(vertexStore, "HEAP", vertexStore);
+            OFF_HEAP_STORE = lookup.findStaticGetter(vertexStore, "OFF_HEAP", vertexStore);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Matchers() {
+    }
+
+    // Construct an ALT instance (validating that the stream is bipartite)
+    static Object newALT(List<DefaultEdge> stream) throws Throwable {
+        return NEW_ALT.invoke(stream);
+    }
+
+    @SuppressWarnings("unchecked")
+    static Set<DefaultEdge> alt(Object alt, double eps) throws Throwable {
+        return (Set<DefaultEdge>) ALT_MATCHING.invoke(alt, eps);
+    }
+
+    static Object newMcGregor(List<DefaultEdge> stream) throws Throwable {
+        return NEW_MCGREGOR.invoke(stream);
+    }
+
+    // Run McGregor's algorithm for at most maxPhases phases, since the full phase count is impractical
+    @SuppressWarnings("unchecked")
+    static Set<DefaultEdge> mcGregor(Object mcGregor, double eps, long maxPhases) throws Throwable {
+        Object budget = WITH_MAX_PHASES.invoke(UNLIMITED_BUDGET.invoke(), maxPhases);
+        return (Set<DefaultEdge>) MCGREGOR_MATCHING.invoke(mcGregor, eps, budget);
+    }
+
+    @SuppressWarnings("unchecked")
+    static Set<DefaultEdge> greedy(List<DefaultEdge> stream, Graph<Integer, DefaultEdge> g) throws Throwable {
+        return (Set<DefaultEdge>) GREEDY_MATCHING.invoke(stream, g);
+    }
+
+    /* Construct an ALT over the edges (sources[i], targets[i]) of a graph whose bidders are the vertices below
+     * splitPoint, with its auction state in VertexStore.OFF_HEAP if offHeap and in VertexStore.HEAP otherwise */
+    static Object newALT(int[] sources, int[] targets, int vertexCount, int splitPoint, boolean offHeap) throws Throwable {
+        Object stream = NEW_ARRAY_STREAM.invoke(sources, targets, vertexCount);
+        Object bipartition = SPLIT_BIPARTITION.invoke(vertexCount, splitPoint);
+        Object store = offHeap ? OFF_HEAP_STORE.invoke() : HEAP_STORE.invoke();
+        return NEW_STORED_ALT.invoke(stream, bipartition, store);
+    }
+
+    // Run ALT and return its IntMatching, without translating it back into DefaultEdges
+    static Object altIntMatching(Object alt, double eps) throws Throwable {
+        return ALT_INT_MATCHING.invoke(alt, eps);
+    }
+}
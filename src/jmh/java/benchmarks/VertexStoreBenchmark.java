@@ -0,0 +1,57 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/* Time of an ALT run with its auction state in each VertexStore, on a random bipartite graph of n + n vertices and m
+ * edges given by a split point. "heap" and "offHeap" run a single store in their forked JVM. "heapAfterOffHeap" runs
+ * off-heap auctions during the setup of the trial and then measures heap runs, so that heap runs share the JVM with
+ * off-heap ones: this is where array wrappers serving both stores would slow the heap runs down. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(2)
+public class VertexStoreBenchmark {
+    @Param({"heap", "offHeap", "heapAfterOffHeap"})
+    public String store;
+
+    @Param({"100000"})
+    public int n; // size of each side
+
+    @Param({"500000"})
+    public int m;
+
+    @Param({"0.2"})
+    public double eps;
+
+    private Object alt;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        Random random = new Random(42);
+        int[] sources = new int[m];
+        int[] targets = new int[m];
+        for (int i = 0; i < m; i++) {
+            sources[i] = random.nextInt(n);
+            targets[i] = n + random.nextInt(n);
+        }
+        if (store.equals("heapAfterOffHeap")) {
+            Object offHeapALT = Matchers.newALT(sources, targets, 2 * n, n, true);
+            for (int i = 0; i < 10; i++) {
+                Matchers.altIntMatching(offHeapALT, eps);
+            }
+        } else if (!store.equals("heap") && !store.equals("offHeap")) {
+            throw new IllegalArgumentException("Unknown store " + store);
+        }
+        alt = Matchers.newALT(sources, targets, 2 * n, n, store.equals("offHeap"));
+    }
+
+    @Benchmark
+    public Object alt() throws Throwable {
+        return Matchers.altIntMatching(alt, eps);
+    }
+}
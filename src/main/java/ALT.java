@@ -1,169 +1,884 @@
-import org.jgrapht.Graph;
-import org.jgrapht.Graphs;
-import org.jgrapht.alg.color.GreedyColoring;
 import org.jgrapht.graph.DefaultEdge;
-import org.jgrapht.graph.DefaultUndirectedGraph;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
-public class ALT {
-    private final List<DefaultEdge> stream;
+public class ALT implements ProgressiveMatcher {
+    private final EdgeStream stream;
+    private final DefaultEdgeStream edges; // null unless the stream was given as a List<DefaultEdge>
+    private static final int UNALLOCATED = -1;
+    private final Bipartition bipartition; // the bidders are the left side and the items the right side
+    private final int splitPoint; // first item when the bidders are exactly the vertices below it, otherwise -1
+    private final VertexStore store;
+    private int[] compactIds; // id of each vertex within its side of the bipartition
+    private int[] bidderVertices;
+    private int[] itemVertices;
+    private ForkJoinPool pool; // null when the passes run sequentially
+    private EdgeShards shards;
+    private boolean parallelMaximalMatching = false;
+    private MatchingListener listener = MatchingListener.NONE;
+    private MatchingProgress progress = MatchingProgress.NONE;
+    private boolean qualityTarget = false;
+    private boolean edgesChecked = false; // whether a demand pass has checked that every edge joins the two sides
+    private int roundCount = 0; // rounds run by the last run
+    private long passCount = 0; // passes made by the last run
+    private EdgeWeights weights; // null unless the auction is weighted, as in WeightedALT
+    private String algorithm = "ALT"; // name reported to the listener and progress
 
     public ALT(List<DefaultEdge> stream) {
+        this(new DefaultEdgeStream(stream));
+    }
+
+    public ALT(EdgeStream stream) {
+        this(stream, Bipartition.detect(stream));
+    }
+
+    // Same as ALT(stream, bipartition) for a List<DefaultEdge> whose sides are given as sets of vertex labels
+    public ALT(List<DefaultEdge> stream, Set<Integer> bidders, Set<Integer> items) {
+        this(new DefaultEdgeStream(stream), bidders, items);
+    }
+
+    private ALT(DefaultEdgeStream stream, Set<Integer> bidders, Set<Integer> items) {
+        this(stream, labelBipartition(stream, bidders, items));
+    }
+
+    /* Construct an ALT for a stream whose bipartition is already known, skipping its detection: the left side are the
+     * bidders and the right side the items. Every edge must join the two sides; the first demand pass of a run checks
+     * this and throws IllegalArgumentException on the first edge that does not. When the bipartition is given by a
+     * split point, the side of each endpoint of an edge is found with a single comparison. */
+    public ALT(EdgeStream stream, Bipartition bipartition) {
+        this(stream, bipartition, VertexStore.HEAP);
+    }
+
+    /* Same as ALT(stream, bipartition), with the auction state allocated in the given store, e.g. VertexStore.OFF_HEAP
+     * for graphs whose prices, allocations and demands should not live on the Java heap (the id maps of the bipartition
+     * stay on it). The passes of an off-heap auction run sequentially. Pass Bipartition.detect(stream) to have the
+     * bipartition detected and validated. */
+    public ALT(EdgeStream stream, Bipartition bipartition, VertexStore store) {
+        if (bipartition == null) {
+            throw new IllegalArgumentException("Argument to ALT must be an edge stream of a bipartite graph.");
+        }
+        if (bipartition.vertexCount() != stream.vertexCount()) {
+            throw new IllegalArgumentException("The bipartition must cover the " + stream.vertexCount() + " vertices of the stream.");
+        }
         this.stream = stream;
-        validateBipartite(stream);
+        this.edges = (stream instanceof DefaultEdgeStream) ? (DefaultEdgeStream) stream : null;
+        this.bipartition = bipartition;
+        this.splitPoint = bipartition.splitPoint();
+        this.store = Objects.requireNonNull(store);
+        compactVertexIds();
     }
 
-    // Throw an exception if the input stream does not correspond to a bipartite graph.
-    private void validateBipartite(List<DefaultEdge> stream) {
-        Graph<Integer, DefaultEdge> g = new DefaultUndirectedGraph<>(DefaultEdge.class);
-        for (DefaultEdge edge : stream) {
-            Graphs.addEdgeWithVertices(g, g.getEdgeSource(edge), g.getEdgeTarget(edge));
+    // Translate sides given as Integer vertex labels to the compacted vertices of the stream
+    private static Bipartition labelBipartition(DefaultEdgeStream stream, Set<Integer> bidders, Set<Integer> items) {
+        BitSet left = new BitSet(stream.vertexCount());
+        BitSet right = new BitSet(stream.vertexCount());
+        for (int v = 0; v < stream.vertexCount(); v++) {
+            left.set(v, bidders.contains(stream.label(v)));
+            right.set(v, items.contains(stream.label(v)));
         }
-        GreedyColoring<Integer, DefaultEdge> greedyColoring = new GreedyColoring<>(g);
-        int numColors = greedyColoring.getColoring().getNumberColors();
-        if (numColors != 2) {
-            throw new IllegalArgumentException("Argument to ALT must be an edge stream of a bipartite graph.");
+        return Bipartition.of(stream.vertexCount(), left, right);
+    }
+
+    /* Compute the demands of each round in parallel: the stream is split into numShards contiguous shards whose
+     * minimum prices are reduced into per-shard arrays on the pool and then merged. Since the minimum is exact the
+     * result does not depend on the number of shards or on scheduling. */
+    public void setParallelism(ForkJoinPool pool, int numShards) {
+        if (store.isOffHeap()) {
+            throw new IllegalStateException("The passes of an off-heap auction run sequentially.");
+        }
+        this.pool = pool;
+        this.shards = new EdgeShards(stream.size(), numShards);
+    }
+
+    public void setParallelism(int numShards) {
+        setParallelism(ForkJoinPool.commonPool(), numShards);
+    }
+
+    /* Also compute each round's maximal matching with the lock-free ParallelMaximalMatching engine on the shards set
+     * by setParallelism. The allocations of each round then depend on thread scheduling, so unlike the parallel demand
+     * pass this makes runs non-deterministic (the approximation guarantee is unaffected). */
+    public void setParallelMaximalMatching(boolean enabled) {
+        if (enabled && pool == null) {
+            throw new IllegalStateException("setParallelism must be called before enabling the parallel maximal matching.");
+        }
+        if (enabled && weights != null) {
+            throw new IllegalStateException("The parallel maximal matching does not see the weights of a weighted auction.");
+        }
+        this.parallelMaximalMatching = enabled;
+    }
+
+    /* Weigh the edges of the stream, for WeightedALT: the demand of a bidder becomes the minimum cost (price minus
+     * weight) of its edges, bidders bid on the items of minimum and negative cost, and prices rise by eps times the
+     * largest weight, up to that weight. With unit weights this is exactly the unweighted auction. */
+    void setWeights(EdgeWeights weights) {
+        if (weights.stream() != stream) {
+            throw new IllegalArgumentException("The weights must be those of the stream of the auction.");
+        }
+        if (parallelMaximalMatching) {
+            throw new IllegalStateException("The parallel maximal matching does not see the weights of a weighted auction.");
+        }
+        this.weights = weights;
+        this.algorithm = "WeightedALT";
+    }
+
+    // Report the passes, rounds and vertex-state memory of every subsequent run to listener
+    public void setListener(MatchingListener listener) {
+        this.listener = Objects.requireNonNull(listener);
+    }
+
+    // Send the allocation of every round of subsequent runs to progress, as a matching
+    @Override
+    public void setProgress(MatchingProgress progress) {
+        this.progress = Objects.requireNonNull(progress);
+    }
+
+    /* Stop the auction as soon as the allocation is provably within a factor 1 - eps of a maximum matching. At the start
+     * of every round the prices p_j of the items and the utilities u_i = max(0, 1 - demand_i) of the bidders form a
+     * fractional vertex cover (u_i + p_j >= 1 on every edge), so their sum bounds the size of a maximum matching from
+     * above; once the allocation reaches 1 - eps times this dual bound, the guarantee of the remaining rounds already
+     * holds. A weighted auction compares the weight of the allocation with the weighted dual instead, whose utilities
+     * u_i = max(0, -demand_i) satisfy u_i + p_j >= w_ij (see Auction.dualBound). Costs O(number of bidders) per round
+     * on top of the demand pass. */
+    public void setQualityTarget(boolean enabled) {
+        this.qualityTarget = enabled;
+    }
+
+    // Number of rounds run by the last run: at most ceil(2/eps^2), fewer if it converged or met its quality target
+    public int getRoundCount() {
+        return roundCount;
+    }
+
+    // Run the auction and translate the result back into the DefaultEdges of the stream the ALT was constructed with
+    @Override
+    public Set<DefaultEdge> findApproximateMaxMatching(double eps) {
+        if (edges == null) {
+            throw new IllegalStateException("findApproximateMaxMatching requires an ALT constructed from a List<DefaultEdge>; use findApproximateIntMatching instead.");
         }
+        return edges.toEdgeSet(findApproximateIntMatching(eps));
     }
 
     /* Implementation of the auction algorithm for bipartite matching Assadi, Liu, and Tarjan's "An Auction Algorithm
      * for Bipartite Matching in Streaming and Massively Parallel Computation Models" paper (2021). Paper available at
      * https://epubs.siam.org/doi/10.1137/1.9781611976496.18 */
-    public Set<DefaultEdge> findApproximateMaxMatching(double eps) {
+    @Override
+    public IntMatching findApproximateIntMatching(double eps) {
+        return findApproximateIntMatching(eps, PassBudget.unlimited());
+    }
+
+    /* Same as findApproximateIntMatching(eps), but stops before the next pass once the budget is exhausted and
+     * returns the current allocation, which has no approximation guarantee if the auction was cut short. Each round
+     * counts as a phase of the budget, and improves the matching when it allocates a bidder that was unallocated. */
+    @Override
+    public IntMatching findApproximateIntMatching(double eps, PassBudget budget) {
         if (eps <= 0 || eps >= 1) {
             throw new IllegalArgumentException("Argument to findApproximateMatching must be a real number strictly between 0 and 1");
         }
-        Graph<Integer, DefaultEdge> g = new DefaultUndirectedGraph<>(DefaultEdge.class);
-        List<Set<Integer>> biddersItemsList = classifyBiddersAndItems(this.stream, g);
-        Set<Integer> bidders = biddersItemsList.get(0);
-        Set<Integer> items = biddersItemsList.get(1);
-        Map<Integer, Double> prices = new HashMap<>();
-        Map<Integer, Integer> bidderAllocations = new HashMap<>();
-        Map<Integer, Integer> itemOwners = new HashMap<>();
-        for (int item : items) {
-            prices.put(item, 0.0);
-            itemOwners.put(item, -1);
-        }
-        for (int bidder : bidders) {
-            bidderAllocations.put(bidder, -1);
-        }
-        int maxIterations = (int) Math.ceil(2 / (eps * eps));
-        for (int i = 0; i < maxIterations; i++) {
-            Map<Integer, Double> demands = new HashMap<>();
-            for (DefaultEdge edge : this.stream) {
-                int source = g.getEdgeSource(edge);
-                int target = g.getEdgeTarget(edge);
-                int bidder;
-                int item;
-                if (bidders.contains(source)) {
-                    bidder = source;
-                    item = target;
-                } else {
-                    bidder = target;
-                    item = source;
-                }
-                double price = prices.get(item);
+        return run(newAuction(), eps, (int) Math.ceil(2 / (eps * eps)), budget);
+    }
 
-                if (!demands.containsKey(bidder) || price < demands.get(bidder)) {
-                    demands.put(bidder, price);
-                }
+    // A new auction over the bidders and items of the stream, with every price at zero and nothing allocated
+    Auction newAuction() {
+        return store.isOffHeap() ? new OffHeapAuction() : new HeapAuction();
+    }
+
+    /* Run rounds of the auction until maxRounds have run, a round allocates nothing (the auction has converged), the
+     * quality target is met or the budget is exhausted, and return the allocation as a matching. The auction keeps
+     * its prices and allocation, so that a later run (e.g. of IncrementalALT) can resume from them. */
+    IntMatching run(Auction auction, double eps, int maxRounds, PassBudget budget) {
+        listener.onRunStart(algorithm, stream.vertexCount(), stream.size());
+        passCount = 0;
+        roundCount = 0;
+        PassBudget.Tracker tracker = budget.start();
+        while (roundCount < maxRounds && !tracker.isExhausted() && auction.round(eps, tracker)) {
+            // each round reports its passes, allocation and progress itself
+        }
+        listener.onRunEnd(algorithm, auction.matchingSize, passCount, vertexStateBytes(auction.numBidders(), auction.numItems()));
+        return auction.toMatching();
+    }
+
+    // Bytes of vertex-indexed state held during a run: the bipartition, the auction state and the per-shard demands
+    private long vertexStateBytes(int numBidders, int numItems) {
+        long n = stream.vertexCount();
+        long bytes = (splitPoint >= 0 ? 0 : n) + 4 * n + 4L * (numBidders + numItems); // sides, compactIds and the id maps
+        bytes += (long) numBidders * (4 + 8 + 4 + 4) + (long) numItems * (8 + 4 + 4);
+        if (pool != null) {
+            bytes += 8L * numBidders * shards.count();
+        }
+        if (parallelMaximalMatching) {
+            bytes += 4 * n; // mate array of the parallel engine
+        }
+        if (weights != null) {
+            bytes += 16L * numBidders; // weights of the allocated and proposed edges
+        }
+        return bytes + 4 * n; // the returned IntMatching
+    }
+
+    /* The state of an auction over the compacted bidders and items of the stream. The prices and the allocation carry
+     * over from round to round, and from run to run when an auction is resumed; the demands and the maximal matching
+     * of a round are overwritten in place by the next one. Each store has its own subclass holding the state in its own
+     * representation, and the passes over the stream are written out in each subclass: the heap auction indexes plain
+     * Java arrays, so its inner loops are exactly those of an auction that knows nothing of other stores. The copies
+     * must take the same decisions; VertexStoreTest checks that both give the same matchings. */
+    abstract class Auction {
+        int matchingSize = 0;
+        double priceSum = 0;
+
+        abstract int numBidders();
+
+        abstract int numItems();
+
+        abstract double price(int item);
+
+        abstract void setPrice(int item, double price);
+
+        // Item allocated to the bidder, or UNALLOCATED
+        abstract int allocationOf(int bidder);
+
+        // Allocate the item to the bidder at the given price, taking it from its previous owner if it had one
+        abstract void allocate(int bidder, int item, double price);
+
+        // Free the bidder and the item allocated to it, if any; the price of the item is kept
+        abstract void free(int bidder);
+
+        /* The demand pass: set the demand of every bidder to the minimum price of the items adjacent to it, or in a
+         * weighted auction to the minimum cost (price minus weight) of its edges */
+        abstract void computeDemands();
+
+        /* Sum of the item prices and bidder utilities, an upper bound on the size of a maximum matching. A bidder's
+         * utility is max(0, 1 - demand), or in a weighted auction max(0, -demand) with the demand its minimum cost, and
+         * the sum then bounds the weight of a maximum-weight matching. */
+        abstract double dualBound();
+
+        /* Greedily match unallocated bidders to items at their demanded price (if below 1), or in a weighted auction at
+         * their demanded cost (if negative), recording the item each bidder receives and the matched bidders. Returns
+         * the size of the matching. */
+        abstract int findMaximalMatching();
+
+        // Allocate to every bidder of the maximal matching its item, raising the price of the item by increment up to cap
+        abstract void reallocate(int maximalMatchingSize, double increment, double cap);
+
+        // Total weight of the edges of the allocation, which is its size when the auction is unweighted
+        abstract double matchingWeight();
+
+        /* Run one round: the demand pass, then, unless the quality target is met or the budget is exhausted, the
+         * maximal-matching pass and the reallocation of the items it matched. Returns whether the round allocated any
+         * item; if not, the auction has converged or was stopped, and its state is left as it was. */
+        private boolean round(double eps, PassBudget.Tracker tracker) {
+            long passStart = System.nanoTime();
+            tracker.recordPass();
+            computeDemands();
+            edgesChecked = true;
+            listener.onPass(algorithm, ++passCount, stream.size(), System.nanoTime() - passStart);
+            if ((qualityTarget && matchingWeight() >= (1 - eps) * dualBound()) || tracker.isExhausted()) {
+                return false;
             }
+            passStart = System.nanoTime();
+            tracker.recordPass();
             /* Note: Reimplementing the maximal-matching procedure (already implemented in the GraphUtils file)
              * because it is adapted to the Assadi-Liu-Tarjan algorithm, where the maximal matching is only of a
              * subgraph of the graph represented by the stream */
-            Set<DefaultEdge> maximalMatching = new HashSet<>();
-            Set<Integer> verticesInMaximalMatching = new HashSet<>();
-            for (DefaultEdge edge : this.stream) {
-                int source = g.getEdgeSource(edge);
-                int target = g.getEdgeTarget(edge);
-                int bidder;
-                int item;
-                if (bidders.contains(source)) {
-                    bidder = source;
-                    item = target;
-                } else {
-                    bidder = target;
-                    item = source;
+            int maximalMatchingSize = findMaximalMatching();
+            listener.onPass(algorithm, ++passCount, stream.size(), System.nanoTime() - passStart);
+            int sizeBeforeRound = matchingSize;
+            if (weights == null) {
+                reallocate(maximalMatchingSize, eps, 1.0);
+            } else {
+                reallocate(maximalMatchingSize, eps * weights.maxWeight(), weights.maxWeight());
+            }
+            roundCount++;
+            tracker.recordPhase(matchingSize > sizeBeforeRound);
+            listener.onRound(algorithm, roundCount, matchingSize);
+            if (progress != MatchingProgress.NONE) {
+                progress.onMatching(algorithm, roundCount, toMatching());
+            }
+            // With no new allocation, the prices and hence the demands and maximal matching of the next round would be
+            // the same, so the auction has converged
+            return maximalMatchingSize > 0;
+        }
+
+        /* Take over the prices and the allocation of an auction of another ALT, keyed by vertex id. Every vertex of the
+         * previous auction must be a vertex of this one on the same side, as when IncrementalALT builds a new ALT for
+         * each version of its graph. */
+        void resume(Auction previous) {
+            if (weights != null) {
+                throw new IllegalStateException("A weighted auction cannot be resumed.");
+            }
+            for (int item = 0; item < previous.numItems(); item++) {
+                int v = previous.itemVertex(item);
+                if (v >= stream.vertexCount() || !bipartition.isRight(v)) {
+                    throw new IllegalArgumentException("Vertex " + v + " is no longer an item of the auction.");
                 }
-                double price = prices.get(item);
-                boolean isUnallocated = (bidderAllocations.get(bidder) == -1);
-                boolean priceIsMin = (price == demands.get(bidder) && price < 1);
+                setPrice(compactIds[v], previous.price(item));
+            }
+            for (int bidder = 0; bidder < previous.numBidders(); bidder++) {
+                int v = previous.bidderVertex(bidder);
+                if (v >= stream.vertexCount() || !bipartition.isLeft(v)) {
+                    throw new IllegalArgumentException("Vertex " + v + " is no longer a bidder of the auction.");
+                }
+                int item = previous.allocationOf(bidder);
+                if (item != UNALLOCATED) {
+                    int newItem = compactIds[previous.itemVertex(item)];
+                    allocate(compactIds[v], newItem, price(newItem));
+                }
+            }
+        }
+
+        // Item vertex allocated to the bidder vertex v, or -1 if it has none
+        int allocation(int v) {
+            int item = allocationOf(compactIds[v]);
+            return (item == UNALLOCATED) ? -1 : itemVertices[item];
+        }
+
+        // Free the bidder vertex v and the item allocated to it; the price of the item is kept
+        void release(int v) {
+            free(compactIds[v]);
+        }
+
+        private int bidderVertex(int bidder) {
+            return bidderVertices[bidder];
+        }
+
+        private int itemVertex(int item) {
+            return itemVertices[item];
+        }
+
+        IntMatching toMatching() {
+            IntMatching approxMatching = new IntMatching(stream.vertexCount());
+            for (int bidder = 0; bidder < numBidders(); bidder++) {
+                int item = allocationOf(bidder);
+                if (item == UNALLOCATED) {
+                    continue;
+                }
+                approxMatching.add(bidderVertices[bidder], itemVertices[item]);
+            }
+            return approxMatching;
+        }
+    }
+
+    // The auction of VertexStore.HEAP, in Java arrays; the only one that runs its passes in parallel
+    private final class HeapAuction extends Auction {
+        private final double[] prices;
+        private final int[] itemOwners;
+        private final int[] bidderAllocations;
+        private final double[] demands;
+        private final int[] proposals; // item each bidder receives in the current round's maximal matching
+        private final int[] itemsInMaximalMatching; // 1 if the item is in it, 0 otherwise
+        private final int[] biddersInMaximalMatching;
+        private final double[] allocatedWeights; // weight of the edge along which each bidder is allocated, if weighted
+        private final double[] proposalWeights; // weight of the edge of each bidder in the maximal matching, if weighted
+        private final double[][] shardDemands; // null when the demands are computed sequentially
+        private final ParallelMaximalMatching maximalMatchingEngine; // null unless enabled
+
+        private HeapAuction() {
+            int numBidders = bidderVertices.length;
+            int numItems = itemVertices.length;
+            prices = new double[numItems];
+            itemOwners = new int[numItems];
+            bidderAllocations = new int[numBidders];
+            demands = new double[numBidders];
+            proposals = new int[numBidders];
+            itemsInMaximalMatching = new int[numItems];
+            biddersInMaximalMatching = new int[numBidders];
+            allocatedWeights = (weights == null) ? null : new double[numBidders];
+            proposalWeights = (weights == null) ? null : new double[numBidders];
+            Arrays.fill(itemOwners, UNALLOCATED);
+            Arrays.fill(bidderAllocations, UNALLOCATED);
+            Arrays.fill(proposals, UNALLOCATED);
+            shardDemands = (pool == null) ? null : new double[shards.count()][numBidders];
+            maximalMatchingEngine = parallelMaximalMatching ? new ParallelMaximalMatching(stream, pool, shards.count()) : null;
+        }
+
+        @Override
+        int numBidders() {
+            return bidderAllocations.length;
+        }
+
+        @Override
+        int numItems() {
+            return itemOwners.length;
+        }
+
+        @Override
+        double price(int item) {
+            return prices[item];
+        }
+
+        @Override
+        int allocationOf(int bidder) {
+            return bidderAllocations[bidder];
+        }
+
+        @Override
+        void setPrice(int item, double price) {
+            priceSum += price - prices[item];
+            prices[item] = price;
+        }
+
+        @Override
+        void allocate(int bidder, int item, double price) {
+            int previousOwner = itemOwners[item];
+            if (previousOwner != UNALLOCATED) {
+                bidderAllocations[previousOwner] = UNALLOCATED;
+            } else {
+                matchingSize++;
+            }
+            itemOwners[item] = bidder;
+            bidderAllocations[bidder] = item;
+            setPrice(item, price);
+        }
+
+        @Override
+        void free(int bidder) {
+            int item = bidderAllocations[bidder];
+            if (item != UNALLOCATED) {
+                bidderAllocations[bidder] = UNALLOCATED;
+                itemOwners[item] = UNALLOCATED;
+                matchingSize--;
+            }
+        }
+
+        @Override
+        void computeDemands() {
+            if (pool == null) {
+                Arrays.fill(demands, Double.POSITIVE_INFINITY);
+                computeDemands(stream.pass(), demands);
+            } else {
+                computeDemandsInParallel();
+            }
+        }
+
+        // Lower each bidder's demand to the minimum price of the items adjacent to it over the edges of the cursor
+        private void computeDemands(EdgeStream.Cursor cursor, double[] demands) {
+            if (weights != null) {
+                computeCosts(cursor, demands);
+                return;
+            }
+            boolean check = !edgesChecked;
+            while (cursor.next()) {
+                int source = cursor.source();
+                int target = cursor.target();
+                if (check) {
+                    checkEdge(source, target);
+                }
+                int bidder = bidderOf(source, target);
+                int item = itemOf(source, target);
+                double price = prices[item];
+                if (price < demands[bidder]) {
+                    demands[bidder] = price;
+                }
+            }
+        }
+
+        // Weighted demand pass: lower each bidder's demand to the minimum cost, price minus weight, of its edges
+        private void computeCosts(EdgeStream.Cursor cursor, double[] demands) {
+            boolean check = !edgesChecked;
+            while (cursor.next()) {
+                int source = cursor.source();
+                int target = cursor.target();
+                if (check) {
+                    checkEdge(source, target);
+                }
+                int bidder = bidderOf(source, target);
+                double cost = prices[itemOf(source, target)] - weights.weight(cursor.position());
+                if (cost < demands[bidder]) {
+                    demands[bidder] = cost;
+                }
+            }
+        }
+
+        // Run the demand pass over every shard in parallel and merge the per-shard minima into demands
+        private void computeDemandsInParallel() {
+            shards.forEach(pool, shard -> {
+                Arrays.fill(shardDemands[shard], Double.POSITIVE_INFINITY);
+                computeDemands(shards.pass(stream, shard), shardDemands[shard]);
+            });
+            int numBidders = demands.length;
+            int numChunks = shards.count();
+            EdgeShards.forRange(pool, 0, numChunks, chunk -> {
+                int from = (int) ((long) numBidders * chunk / numChunks);
+                int to = (int) ((long) numBidders * (chunk + 1) / numChunks);
+                for (int bidder = from; bidder < to; bidder++) {
+                    double demand = Double.POSITIVE_INFINITY;
+                    for (double[] partial : shardDemands) {
+                        demand = Math.min(demand, partial[bidder]);
+                    }
+                    demands[bidder] = demand;
+                }
+            });
+        }
+
+        @Override
+        double dualBound() {
+            double bound = priceSum;
+            double value = (weights == null) ? 1 : 0;
+            for (double demand : demands) {
+                if (demand < value) {
+                    bound += value - demand;
+                }
+            }
+            return bound;
+        }
+
+        @Override
+        int findMaximalMatching() {
+            if (maximalMatchingEngine != null) {
+                return findMaximalMatchingInParallel();
+            }
+            if (weights != null) {
+                return findWeightedMaximalMatching();
+            }
+            int maximalMatchingSize = 0;
+            EdgeStream.Cursor cursor = stream.pass();
+            while (cursor.next()) {
+                int source = cursor.source();
+                int target = cursor.target();
+                int bidder = bidderOf(source, target);
+                int item = itemOf(source, target);
+                double price = prices[item];
+                boolean isUnallocated = (bidderAllocations[bidder] == UNALLOCATED);
+                boolean priceIsMin = (price == demands[bidder] && price < 1);
                 if (isUnallocated && priceIsMin) {
-                    if (!verticesInMaximalMatching.contains(source) && !verticesInMaximalMatching.contains(target)) {
-                        maximalMatching.add(edge);
-                        verticesInMaximalMatching.add(source);
-                        verticesInMaximalMatching.add(target);
+                    if (proposals[bidder] == UNALLOCATED && itemsInMaximalMatching[item] == 0) {
+                        proposals[bidder] = item;
+                        itemsInMaximalMatching[item] = 1;
+                        biddersInMaximalMatching[maximalMatchingSize++] = bidder;
                     }
                 }
             }
-            for (DefaultEdge edge : maximalMatching) {
-                int source = g.getEdgeSource(edge);
-                int target = g.getEdgeTarget(edge);
-                int bidder;
-                int item;
-                if (bidders.contains(source)) {
-                    bidder = source;
-                    item = target;
-                } else {
-                    bidder = target;
-                    item = source;
+            return maximalMatchingSize;
+        }
+
+        // Same as findMaximalMatching, over the edges of minimum and negative cost, recording the weight of each proposal
+        private int findWeightedMaximalMatching() {
+            int maximalMatchingSize = 0;
+            EdgeStream.Cursor cursor = stream.pass();
+            while (cursor.next()) {
+                int source = cursor.source();
+                int target = cursor.target();
+                int bidder = bidderOf(source, target);
+                int item = itemOf(source, target);
+                double weight = weights.weight(cursor.position());
+                double cost = prices[item] - weight;
+                if (bidderAllocations[bidder] == UNALLOCATED && cost == demands[bidder] && cost < 0
+                        && proposals[bidder] == UNALLOCATED && itemsInMaximalMatching[item] == 0) {
+                    proposals[bidder] = item;
+                    proposalWeights[bidder] = weight;
+                    itemsInMaximalMatching[item] = 1;
+                    biddersInMaximalMatching[maximalMatchingSize++] = bidder;
                 }
-                double price = prices.get(item);
-                int previousOwner = itemOwners.get(item);
-                if (previousOwner != -1) {
-                    bidderAllocations.put(previousOwner, -1);
+            }
+            return maximalMatchingSize;
+        }
+
+        // Same as findMaximalMatching, but claiming the edges of the subgraph concurrently over the shards of the stream
+        private int findMaximalMatchingInParallel() {
+            maximalMatchingEngine.run((source, target) -> {
+                int bidder = bidderOf(source, target);
+                int item = itemOf(source, target);
+                double price = prices[item];
+                return bidderAllocations[bidder] == UNALLOCATED && price == demands[bidder] && price < 1;
+            });
+            int maximalMatchingSize = 0;
+            for (int bidder = 0; bidder < bidderVertices.length; bidder++) {
+                int mate = maximalMatchingEngine.mate(bidderVertices[bidder]);
+                if (mate >= 0) {
+                    proposals[bidder] = compactIds[mate];
+                    biddersInMaximalMatching[maximalMatchingSize++] = bidder;
+                }
+            }
+            return maximalMatchingSize;
+        }
+
+        @Override
+        void reallocate(int maximalMatchingSize, double increment, double cap) {
+            for (int j = 0; j < maximalMatchingSize; j++) {
+                int bidder = biddersInMaximalMatching[j];
+                int item = proposals[bidder];
+                allocate(bidder, item, Math.min(prices[item] + increment, cap));
+                if (allocatedWeights != null) {
+                    allocatedWeights[bidder] = proposalWeights[bidder];
                 }
-                itemOwners.put(item, bidder);
-                bidderAllocations.put(bidder, item);
-                prices.put(item, Math.min(price + eps, 1.0));
+                proposals[bidder] = UNALLOCATED;
+                itemsInMaximalMatching[item] = 0;
             }
         }
-        return getApproxMatching(bidderAllocations, g);
+
+        @Override
+        double matchingWeight() {
+            if (allocatedWeights == null) {
+                return matchingSize;
+            }
+            double weight = 0;
+            for (int bidder = 0; bidder < bidderAllocations.length; bidder++) {
+                if (bidderAllocations[bidder] != UNALLOCATED) {
+                    weight += allocatedWeights[bidder];
+                }
+            }
+            return weight;
+        }
     }
 
-    private Set<DefaultEdge> getApproxMatching(Map<Integer, Integer> bidderAllocations, Graph<Integer, DefaultEdge> g) {
-        Set<DefaultEdge> approxMatching = new HashSet<>();
-        Set<Set<Integer>> edgeSet = new HashSet<>();
-        for (int bidder : bidderAllocations.keySet()) {
+    // The auction of an off-heap store, in VertexStore arrays; its passes run sequentially
+    private final class OffHeapAuction extends Auction {
+        private final VertexStore.DoubleArray prices;
+        private final VertexStore.IntArray itemOwners;
+        private final VertexStore.IntArray bidderAllocations;
+        private final VertexStore.DoubleArray demands;
+        private final VertexStore.IntArray proposals;
+        private final VertexStore.IntArray itemsInMaximalMatching;
+        private final VertexStore.IntArray biddersInMaximalMatching;
+        private final VertexStore.DoubleArray allocatedWeights; // null unless weighted
+        private final VertexStore.DoubleArray proposalWeights;
+
+        private OffHeapAuction() {
+            int numBidders = bidderVertices.length;
+            int numItems = itemVertices.length;
+            prices = store.newDoubleArray(numItems);
+            itemOwners = store.newIntArray(numItems);
+            bidderAllocations = store.newIntArray(numBidders);
+            demands = store.newDoubleArray(numBidders);
+            proposals = store.newIntArray(numBidders);
+            itemsInMaximalMatching = store.newIntArray(numItems);
+            biddersInMaximalMatching = store.newIntArray(numBidders);
+            allocatedWeights = (weights == null) ? null : store.newDoubleArray(numBidders);
+            proposalWeights = (weights == null) ? null : store.newDoubleArray(numBidders);
+            itemOwners.fill(UNALLOCATED);
+            bidderAllocations.fill(UNALLOCATED);
+            proposals.fill(UNALLOCATED);
+        }
+
+        @Override
+        int numBidders() {
+            return bidderAllocations.length();
+        }
+
+        @Override
+        int numItems() {
+            return itemOwners.length();
+        }
+
+        @Override
+        double price(int item) {
+            return prices.get(item);
+        }
+
+        @Override
+        int allocationOf(int bidder) {
+            return bidderAllocations.get(bidder);
+        }
+
+        @Override
+        void setPrice(int item, double price) {
+            priceSum += price - prices.get(item);
+            prices.set(item, price);
+        }
+
+        @Override
+        void allocate(int bidder, int item, double price) {
+            int previousOwner = itemOwners.get(item);
+            if (previousOwner != UNALLOCATED) {
+                bidderAllocations.set(previousOwner, UNALLOCATED);
+            } else {
+                matchingSize++;
+            }
+            itemOwners.set(item, bidder);
+            bidderAllocations.set(bidder, item);
+            setPrice(item, price);
+        }
+
+        @Override
+        void free(int bidder) {
             int item = bidderAllocations.get(bidder);
-            if (item == -1) {
-                continue;
-            }
-            Set<Integer> newEdge = new HashSet<>();
-            newEdge.add(bidder);
-            newEdge.add(item);
-            edgeSet.add(newEdge);
-        }
-        for (DefaultEdge edge : stream) {
-            int v = g.getEdgeSource(edge);
-            int u = g.getEdgeTarget(edge);
-            Set<Integer> newEdge = new HashSet<>();
-            newEdge.add(v);
-            newEdge.add(u);
-            if (edgeSet.contains(newEdge)) {
-                approxMatching.add(edge);
-            }
-        }
-        return approxMatching;
-    }
-
-    // Designate one partition of the bipartite graph as the set of "bidders" and the other partition sa the set of
-    // "items".
-    private static List<Set<Integer>> classifyBiddersAndItems(List<DefaultEdge> stream, Graph<Integer, DefaultEdge> g) {
-        Set<Integer> bidders = new HashSet<>();
-        Set<Integer> items = new HashSet<>();
-        for (DefaultEdge edge : stream) {
-            int source = g.getEdgeSource(edge);
-            int target = g.getEdgeTarget(edge);
-            if (bidders.contains(source) || items.contains(target)) {
-                bidders.add(source);
-                items.add(target);
+            if (item != UNALLOCATED) {
+                bidderAllocations.set(bidder, UNALLOCATED);
+                itemOwners.set(item, UNALLOCATED);
+                matchingSize--;
+            }
+        }
+
+        @Override
+        void computeDemands() {
+            demands.fill(Double.POSITIVE_INFINITY);
+            EdgeStream.Cursor cursor = stream.pass();
+            if (weights != null) {
+                computeCosts(cursor);
+                return;
+            }
+            boolean check = !edgesChecked;
+            while (cursor.next()) {
+                int source = cursor.source();
+                int target = cursor.target();
+                if (check) {
+                    checkEdge(source, target);
+                }
+                int bidder = bidderOf(source, target);
+                double price = prices.get(itemOf(source, target));
+                if (price < demands.get(bidder)) {
+                    demands.set(bidder, price);
+                }
+            }
+        }
+
+        private void computeCosts(EdgeStream.Cursor cursor) {
+            boolean check = !edgesChecked;
+            while (cursor.next()) {
+                int source = cursor.source();
+                int target = cursor.target();
+                if (check) {
+                    checkEdge(source, target);
+                }
+                int bidder = bidderOf(source, target);
+                double cost = prices.get(itemOf(source, target)) - weights.weight(cursor.position());
+                if (cost < demands.get(bidder)) {
+                    demands.set(bidder, cost);
+                }
+            }
+        }
+
+        @Override
+        double dualBound() {
+            double bound = priceSum;
+            double value = (weights == null) ? 1 : 0;
+            for (int bidder = 0; bidder < demands.length(); bidder++) {
+                double demand = demands.get(bidder);
+                if (demand < value) {
+                    bound += value - demand;
+                }
+            }
+            return bound;
+        }
+
+        @Override
+        int findMaximalMatching() {
+            if (weights != null) {
+                return findWeightedMaximalMatching();
+            }
+            int maximalMatchingSize = 0;
+            EdgeStream.Cursor cursor = stream.pass();
+            while (cursor.next()) {
+                int source = cursor.source();
+                int target = cursor.target();
+                int bidder = bidderOf(source, target);
+                int item = itemOf(source, target);
+                double price = prices.get(item);
+                if (bidderAllocations.get(bidder) == UNALLOCATED && price == demands.get(bidder) && price < 1
+                        && proposals.get(bidder) == UNALLOCATED && itemsInMaximalMatching.get(item) == 0) {
+                    proposals.set(bidder, item);
+                    itemsInMaximalMatching.set(item, 1);
+                    biddersInMaximalMatching.set(maximalMatchingSize++, bidder);
+                }
+            }
+            return maximalMatchingSize;
+        }
+
+        private int findWeightedMaximalMatching() {
+            int maximalMatchingSize = 0;
+            EdgeStream.Cursor cursor = stream.pass();
+            while (cursor.next()) {
+                int source = cursor.source();
+                int target = cursor.target();
+                int bidder = bidderOf(source, target);
+                int item = itemOf(source, target);
+                double weight = weights.weight(cursor.position());
+                double cost = prices.get(item) - weight;
+                if (bidderAllocations.get(bidder) == UNALLOCATED && cost == demands.get(bidder) && cost < 0
+                        && proposals.get(bidder) == UNALLOCATED && itemsInMaximalMatching.get(item) == 0) {
+                    proposals.set(bidder, item);
+                    proposalWeights.set(bidder, weight);
+                    itemsInMaximalMatching.set(item, 1);
+                    biddersInMaximalMatching.set(maximalMatchingSize++, bidder);
+                }
+            }
+            return maximalMatchingSize;
+        }
+
+        @Override
+        void reallocate(int maximalMatchingSize, double increment, double cap) {
+            for (int j = 0; j < maximalMatchingSize; j++) {
+                int bidder = biddersInMaximalMatching.get(j);
+                int item = proposals.get(bidder);
+                allocate(bidder, item, Math.min(prices.get(item) + increment, cap));
+                if (allocatedWeights != null) {
+                    allocatedWeights.set(bidder, proposalWeights.get(bidder));
+                }
+                proposals.set(bidder, UNALLOCATED);
+                itemsInMaximalMatching.set(item, 0);
+            }
+        }
+
+        @Override
+        double matchingWeight() {
+            if (allocatedWeights == null) {
+                return matchingSize;
+            }
+            double weight = 0;
+            for (int bidder = 0; bidder < bidderAllocations.length(); bidder++) {
+                if (bidderAllocations.get(bidder) != UNALLOCATED) {
+                    weight += allocatedWeights.get(bidder);
+                }
+            }
+            return weight;
+        }
+    }
+
+    // Throw IllegalArgumentException if the edge does not join a bidder to an item
+    private void checkEdge(int source, int target) {
+        boolean joinsSides;
+        if (splitPoint >= 0) {
+            joinsSides = (source < splitPoint) != (target < splitPoint);
+        } else {
+            joinsSides = (bipartition.isLeft(source) && bipartition.isRight(target))
+                    || (bipartition.isRight(source) && bipartition.isLeft(target));
+        }
+        if (!joinsSides) {
+            throw new IllegalArgumentException("Edge {" + source + ", " + target + "} does not join the two sides of the bipartition.");
+        }
+    }
+
+    /* Compacted ids of the bidder and the item joined by an edge, which must join the two sides (see checkEdge). When
+     * the bidders are exactly the vertices below the split point, their compacted ids are their vertex ids and those of
+     * the items are offset by the split point, so both follow from a comparison of the endpoints without looking up
+     * the bipartition or compactIds. */
+    private int bidderOf(int source, int target) {
+        if (splitPoint >= 0) {
+            return Math.min(source, target);
+        }
+        return bipartition.isLeft(source) ? compactIds[source] : compactIds[target];
+    }
+
+    private int itemOf(int source, int target) {
+        if (splitPoint >= 0) {
+            return Math.max(source, target) - splitPoint;
+        }
+        return bipartition.isLeft(source) ? compactIds[target] : compactIds[source];
+    }
+
+    /* Compact the vertex ids of each side of the bipartition: the bidders are renumbered 0, 1, ..., numBidders - 1
+     * and the items 0, 1, ..., numItems - 1, so that the auction state fits in dense arrays of exactly the size of
+     * each side. */
+    private void compactVertexIds() {
+        int vertexCount = stream.vertexCount();
+        compactIds = new int[vertexCount];
+        int numBidders = 0;
+        int numItems = 0;
+        for (int v = 0; v < vertexCount; v++) {
+            if (bipartition.isLeft(v)) {
+                compactIds[v] = numBidders++;
+            } else if (bipartition.isRight(v)) {
+                compactIds[v] = numItems++;
             } else {
-                bidders.add(target);
-                items.add(source);
+                compactIds[v] = -1;
+            }
+        }
+        bidderVertices = new int[numBidders];
+        itemVertices = new int[numItems];
+        for (int v = 0; v < vertexCount; v++) {
+            if (bipartition.isLeft(v)) {
+                bidderVertices[compactIds[v]] = v;
+            } else if (bipartition.isRight(v)) {
+                itemVertices[compactIds[v]] = v;
             }
         }
-        return List.of(bidders, items);
     }
 }
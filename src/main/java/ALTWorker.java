@@ -0,0 +1,386 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.Socket;
+import java.util.Arrays;
+
+/* Worker of a DistributedALT auction. A worker holds one shard of the edges of the graph (any range of an EdgeStream,
+ * e.g. a MappedEdgeStream file local to the worker's machine) and a copy of the item prices, and answers the three
+ * requests the coordinator makes every round, each with one pass over its shard:
+ *
+ * - demands: apply the price changes of the last round and report the minimum price seen by every bidder of the shard;
+ * - propose: record the global demands of the unallocated bidders and propose a greedy maximal matching of the shard's
+ *   edges from those bidders to items at their demanded price (below 1);
+ * - accept: mark the endpoints of the proposals the coordinator accepted as taken and propose again among the edges
+ *   whose endpoints are both still free.
+ *
+ * Every run of the coordinator opens with a start request, which sets the prices of the worker and clears its round
+ * state without a pass, so one worker serves any number of runs and each run starts from the prices it is given.
+ *
+ * A worker is driven either in-process through local(worker) or over a socket, with serve(socket) on the worker side
+ * and connect(socket) on the coordinator side. The vertex-indexed state of a worker takes 28 bytes per vertex. */
+public class ALTWorker {
+    private static final byte CLOSE = 0;
+    private static final byte DEMANDS = 1;
+    private static final byte PROPOSE = 2;
+    private static final byte ACCEPT = 3;
+    private static final byte START = 4;
+
+    // Values attached to a sparse set of vertices, as exchanged with the coordinator
+    public static final class VertexValues {
+        public final int[] vertices;
+        public final double[] values;
+
+        public VertexValues(int[] vertices, double[] values) {
+            if (vertices.length != values.length) {
+                throw new IllegalArgumentException("Every vertex must have exactly one value.");
+            }
+            this.vertices = vertices;
+            this.values = values;
+        }
+
+        public int size() {
+            return vertices.length;
+        }
+    }
+
+    /* Coordinator-side handle on a worker. Proposals are returned as bidder-item pairs packed into a single array
+     * (bidder, item, bidder, item, ...). */
+    public interface Connection extends Closeable {
+        // Forget the state of any previous run and set the given item prices, every other item at price 0
+        void start(VertexValues initialPrices);
+
+        // Apply the price changes of the last round and return the minimum item price of every bidder of the shard
+        VertexValues demands(VertexValues priceChanges);
+
+        // Start a round's maximal matching among the given bidders, each at its global demand
+        int[] propose(VertexValues eligibleDemands);
+
+        // Mark the endpoints of the accepted pairs as taken and return the new proposals, if any
+        int[] accept(int[] acceptedPairs);
+
+        @Override
+        void close();
+    }
+
+    private final EdgeStream stream;
+    private final long from;
+    private final long to;
+    private final Bipartition bipartition;
+    private final int[] shardBidders; // bidders with at least one edge in the shard
+    private final double[] prices; // price of each item, as last broadcast by the coordinator
+    private final double[] demands; // local minimum price of each bidder, then its global demand
+    private final int[] eligibleRound; // round in which each bidder was last eligible
+    private final int[] taken; // round in which each vertex was last taken by an accepted pair
+    private final int[] proposed; // request in which each vertex was last proposed
+    private int round = 0;
+    private int request = 0;
+
+    // Worker over the edges [from, to) of stream, whose left side are the bidders and right side the items
+    public ALTWorker(EdgeStream stream, long from, long to, Bipartition bipartition) {
+        if (bipartition.vertexCount() != stream.vertexCount()) {
+            throw new IllegalArgumentException("The bipartition must cover the " + stream.vertexCount() + " vertices of the stream.");
+        }
+        this.stream = stream;
+        this.from = from;
+        this.to = to;
+        this.bipartition = bipartition;
+        int n = stream.vertexCount();
+        this.prices = new double[n];
+        this.demands = new double[n];
+        this.eligibleRound = new int[n];
+        this.taken = new int[n];
+        this.proposed = new int[n];
+        this.shardBidders = collectBidders();
+    }
+
+    public ALTWorker(EdgeStream stream, Bipartition bipartition) {
+        this(stream, 0, stream.size(), bipartition);
+    }
+
+    private int[] collectBidders() {
+        int count = 0;
+        int[] bidders = new int[16];
+        EdgeStream.Cursor cursor = stream.pass(from, to);
+        while (cursor.next()) {
+            int source = cursor.source();
+            int target = cursor.target();
+            if (bipartition.isLeft(source) == bipartition.isLeft(target)) {
+                throw new IllegalArgumentException("Edge {" + source + ", " + target + "} does not join the two sides of the bipartition.");
+            }
+            int bidder = bipartition.isLeft(source) ? source : target;
+            if (proposed[bidder] == 0) { // reused as a seen marker before the first request
+                proposed[bidder] = 1;
+                if (count == bidders.length) {
+                    bidders = Arrays.copyOf(bidders, 2 * count);
+                }
+                bidders[count++] = bidder;
+            }
+        }
+        Arrays.fill(proposed, 0);
+        return Arrays.copyOf(bidders, count);
+    }
+
+    public void start(VertexValues initialPrices) {
+        Arrays.fill(prices, 0);
+        for (int k = 0; k < initialPrices.size(); k++) {
+            prices[initialPrices.vertices[k]] = initialPrices.values[k];
+        }
+        Arrays.fill(eligibleRound, 0);
+        Arrays.fill(taken, 0);
+        Arrays.fill(proposed, 0);
+        round = 0;
+        request = 0;
+    }
+
+    public VertexValues demands(VertexValues priceChanges) {
+        for (int k = 0; k < priceChanges.size(); k++) {
+            prices[priceChanges.vertices[k]] = priceChanges.values[k];
+        }
+        for (int bidder : shardBidders) {
+            demands[bidder] = Double.POSITIVE_INFINITY;
+        }
+        EdgeStream.Cursor cursor = stream.pass(from, to);
+        while (cursor.next()) {
+            int source = cursor.source();
+            int target = cursor.target();
+            boolean sourceIsBidder = bipartition.isLeft(source);
+            int bidder = sourceIsBidder ? source : target;
+            double price = prices[sourceIsBidder ? target : source];
+            if (price < demands[bidder]) {
+                demands[bidder] = price;
+            }
+        }
+        double[] values = new double[shardBidders.length];
+        for (int k = 0; k < shardBidders.length; k++) {
+            values[k] = demands[shardBidders[k]];
+        }
+        return new VertexValues(shardBidders.clone(), values);
+    }
+
+    public int[] propose(VertexValues eligibleDemands) {
+        round++;
+        for (int k = 0; k < eligibleDemands.size(); k++) {
+            int bidder = eligibleDemands.vertices[k];
+            eligibleRound[bidder] = round;
+            demands[bidder] = eligibleDemands.values[k];
+        }
+        return proposeFreeEdges();
+    }
+
+    public int[] accept(int[] acceptedPairs) {
+        for (int vertex : acceptedPairs) {
+            taken[vertex] = round;
+        }
+        return proposeFreeEdges();
+    }
+
+    // Greedy maximal matching of the shard's eligible edges whose endpoints are not taken in the current round
+    private int[] proposeFreeEdges() {
+        request++;
+        int count = 0;
+        int[] pairs = new int[16];
+        EdgeStream.Cursor cursor = stream.pass(from, to);
+        while (cursor.next()) {
+            int source = cursor.source();
+            int target = cursor.target();
+            boolean sourceIsBidder = bipartition.isLeft(source);
+            int bidder = sourceIsBidder ? source : target;
+            int item = sourceIsBidder ? target : source;
+            if (eligibleRound[bidder] == round && prices[item] == demands[bidder]
+                    && taken[bidder] != round && taken[item] != round
+                    && proposed[bidder] != request && proposed[item] != request) {
+                proposed[bidder] = request;
+                proposed[item] = request;
+                if (count == pairs.length) {
+                    pairs = Arrays.copyOf(pairs, 2 * count);
+                }
+                pairs[count++] = bidder;
+                pairs[count++] = item;
+            }
+        }
+        return Arrays.copyOf(pairs, count);
+    }
+
+    // Connection that calls the worker directly, in the coordinator's process
+    public static Connection local(ALTWorker worker) {
+        return new Connection() {
+            @Override
+            public void start(VertexValues initialPrices) {
+                worker.start(initialPrices);
+            }
+
+            @Override
+            public VertexValues demands(VertexValues priceChanges) {
+                return worker.demands(priceChanges);
+            }
+
+            @Override
+            public int[] propose(VertexValues eligibleDemands) {
+                return worker.propose(eligibleDemands);
+            }
+
+            @Override
+            public int[] accept(int[] acceptedPairs) {
+                return worker.accept(acceptedPairs);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    /* Answer the requests of the coordinator connected to socket until it closes the connection. Each request is an
+     * opcode byte followed by its payload, and is answered before the next one is read. */
+    public void serve(Socket socket) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            while (true) {
+                byte opcode;
+                try {
+                    opcode = in.readByte();
+                } catch (EOFException e) {
+                    return;
+                }
+                switch (opcode) {
+                    case CLOSE:
+                        return;
+                    case START:
+                        start(readValues(in));
+                        out.writeByte(START); // acknowledged, so the next request never overtakes the reset
+                        break;
+                    case DEMANDS:
+                        writeValues(out, demands(readValues(in)));
+                        break;
+                    case PROPOSE:
+                        writeInts(out, propose(readValues(in)));
+                        break;
+                    case ACCEPT:
+                        writeInts(out, accept(readInts(in)));
+                        break;
+                    default:
+                        throw new IOException("Unknown request " + opcode + " from the coordinator.");
+                }
+                out.flush();
+            }
+        }
+    }
+
+    // Connection to a worker serving requests on the other end of socket
+    public static Connection connect(Socket socket) throws IOException {
+        return new SocketConnection(socket);
+    }
+
+    private static class SocketConnection implements Connection {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+
+        private SocketConnection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        @Override
+        public void start(VertexValues initialPrices) {
+            try {
+                out.writeByte(START);
+                writeValues(out, initialPrices);
+                out.flush();
+                if (in.readByte() != START) {
+                    throw new IOException("The worker did not acknowledge the start of the run.");
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public VertexValues demands(VertexValues priceChanges) {
+            try {
+                out.writeByte(DEMANDS);
+                writeValues(out, priceChanges);
+                out.flush();
+                return readValues(in);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public int[] propose(VertexValues eligibleDemands) {
+            try {
+                out.writeByte(PROPOSE);
+                writeValues(out, eligibleDemands);
+                out.flush();
+                return readInts(in);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public int[] accept(int[] acceptedPairs) {
+            try {
+                out.writeByte(ACCEPT);
+                writeInts(out, acceptedPairs);
+                out.flush();
+                return readInts(in);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                out.writeByte(CLOSE);
+                out.flush();
+                socket.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static void writeValues(DataOutputStream out, VertexValues values) throws IOException {
+        out.writeInt(values.size());
+        for (int k = 0; k < values.size(); k++) {
+            out.writeInt(values.vertices[k]);
+            out.writeDouble(values.values[k]);
+        }
+    }
+
+    private static VertexValues readValues(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        int[] vertices = new int[size];
+        double[] values = new double[size];
+        for (int k = 0; k < size; k++) {
+            vertices[k] = in.readInt();
+            values[k] = in.readDouble();
+        }
+        return new VertexValues(vertices, values);
+    }
+
+    private static void writeInts(DataOutputStream out, int[] ints) throws IOException {
+        out.writeInt(ints.length);
+        for (int x : ints) {
+            out.writeInt(x);
+        }
+    }
+
+    private static int[] readInts(DataInputStream in) throws IOException {
+        int[] ints = new int[in.readInt()];
+        for (int k = 0; k < ints.length; k++) {
+            ints[k] = in.readInt();
+        }
+        return ints;
+    }
+}
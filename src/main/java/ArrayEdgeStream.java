@@ -0,0 +1,110 @@
+import java.util.Arrays;
+
+// An in-memory edge stream backed by two packed int arrays holding the endpoints of each edge.
+public class ArrayEdgeStream implements EdgeStream {
+    private final int[] sources;
+    private final int[] targets;
+    private final int vertexCount;
+
+    public ArrayEdgeStream(int[] sources, int[] targets, int vertexCount) {
+        if (sources.length != targets.length) {
+            throw new IllegalArgumentException("Source and target arrays of an edge stream must have the same length.");
+        }
+        for (int i = 0; i < sources.length; i++) {
+            if (sources[i] < 0 || sources[i] >= vertexCount || targets[i] < 0 || targets[i] >= vertexCount) {
+                throw new IllegalArgumentException("Edge " + i + " has an endpoint outside [0, " + vertexCount + ").");
+            }
+        }
+        this.sources = sources;
+        this.targets = targets;
+        this.vertexCount = vertexCount;
+    }
+
+    @Override
+    public long size() {
+        return sources.length;
+    }
+
+    @Override
+    public int vertexCount() {
+        return vertexCount;
+    }
+
+    public int source(long position) {
+        return sources[(int) position];
+    }
+
+    public int target(long position) {
+        return targets[(int) position];
+    }
+
+    @Override
+    public Cursor pass(long from, long to) {
+        if (from < 0 || to > sources.length || from > to) {
+            throw new IndexOutOfBoundsException("Invalid pass range [" + from + ", " + to + ") for a stream of size " + sources.length);
+        }
+        return new ArrayCursor((int) from, (int) to);
+    }
+
+    private class ArrayCursor implements Cursor {
+        private final int end;
+        private int position;
+
+        private ArrayCursor(int from, int to) {
+            this.position = from - 1;
+            this.end = to;
+        }
+
+        @Override
+        public boolean next() {
+            if (position + 1 >= end) {
+                position = end;
+                return false;
+            }
+            position++;
+            return true;
+        }
+
+        @Override
+        public int source() {
+            return sources[position];
+        }
+
+        @Override
+        public int target() {
+            return targets[position];
+        }
+
+        @Override
+        public long position() {
+            return position;
+        }
+    }
+
+    // Incrementally collects edges into an ArrayEdgeStream
+    public static class Builder {
+        private int[] sources = new int[16];
+        private int[] targets = new int[16];
+        private int size = 0;
+        private int vertexCount = 0;
+
+        public Builder addEdge(int source, int target) {
+            if (source < 0 || target < 0) {
+                throw new IllegalArgumentException("Vertex identifiers in an edge stream must be non-negative.");
+            }
+            if (size == sources.length) {
+                sources = Arrays.copyOf(sources, 2 * size);
+                targets = Arrays.copyOf(targets, 2 * size);
+            }
+            sources[size] = source;
+            targets[size] = target;
+            size++;
+            vertexCount = Math.max(vertexCount, Math.max(source, target) + 1);
+            return this;
+        }
+
+        public ArrayEdgeStream build() {
+            return new ArrayEdgeStream(Arrays.copyOf(sources, size), Arrays.copyOf(targets, size), vertexCount);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+/* General-graph matching by random bipartite reductions, the engine McGregor runs with Engine.BIPARTITE_REDUCTION.
+ * Every trial draws a random cut of the vertices in which each edge of the current matching M crosses the cut (one
+ * endpoint on each side, at random) and each free vertex lies on a random side. The edges crossing the cut form a
+ * bipartite subgraph H that contains M, on which ALT finds a matching A with |A| >= (1 - eps) * nu(H). The components
+ * of the symmetric difference of M and A that hold more edges of A than of M are vertex-disjoint augmenting paths for
+ * M, and flipping all of them leaves a matching of size at least max(|M|, |A|).
+ *
+ * An augmenting path with l edges of M lies in H with probability 2^-(l+1), so with k = ceil(1/eps) the k 2^k trials
+ * of a run give every augmenting path of length at most 2k - 1 about k chances to be found. A trial costs at most
+ * 2 ceil(2/eps^2) passes, fewer when ALT converges, so the pass count is exponential in 1/eps with base 2 instead of
+ * McGregor's (2k)^k. ALT's quality target is not used: it would stop as soon as A is within 1 - eps of its dual
+ * bound, typically before A is any larger than M. The subgraph is never stored: ALT passes over a view of the stream
+ * that skips the edges not crossing the cut. */
+class BipartiteReduction {
+    private final EdgeStream stream;
+    private final PassBudget.Tracker tracker;
+    private final MatchingListener listener;
+    private final MatchingProgress progress;
+    private final SplittableRandom random;
+    private final VertexStore store; // where the ALT of each trial keeps its auction
+    private long altStateBytes = 0; // largest vertex state of an ALT run
+
+    BipartiteReduction(EdgeStream stream, PassBudget.Tracker tracker, long seed, MatchingListener listener,
+                       MatchingProgress progress, VertexStore store) {
+        this.stream = stream;
+        this.tracker = tracker;
+        this.listener = listener;
+        this.progress = progress;
+        this.random = new SplittableRandom(seed);
+        this.store = store;
+    }
+
+    // Number of trials k 2^k of a run, saturating at Long.MAX_VALUE (reached for k > 57) instead of overflowing
+    static long trialCount(int k) {
+        return k > 57 ? Long.MAX_VALUE : k * (1L << k);
+    }
+
+    // Improve M in place with up to trialCount(ceil(1/eps)) trials, one phase of the tracker each
+    void augment(IntMatching M, double eps) {
+        int k = (int) Math.ceil(1 / eps);
+        long trials = trialCount(k);
+        int n = stream.vertexCount();
+        byte[] sides = new byte[n];
+        for (long trial = 1; trial <= trials && !tracker.isExhausted(); trial++) {
+            int before = M.size();
+            try {
+                drawCut(M, sides);
+                ALT alt = new ALT(new CutEdgeStream(stream, sides, tracker), toBipartition(sides), store);
+                alt.setListener(new MatchingListener() {
+                    @Override
+                    public void onRunEnd(String algorithm, int matchingSize, long passes, long vertexStateBytes) {
+                        altStateBytes = Math.max(altStateBytes, vertexStateBytes);
+                    }
+                });
+                flipAugmentingComponents(M, alt.findApproximateIntMatching(eps));
+            } catch (PassBudget.ExhaustedException e) {
+                // the trial in progress is discarded; the loop condition ends the run
+            }
+            tracker.recordPhase(M.size() > before);
+            listener.onRound("McGregor", trial, M.size());
+            if (progress != MatchingProgress.NONE) {
+                progress.onMatching("McGregor", trial, M.copy());
+            }
+        }
+    }
+
+    // Bytes of vertex-indexed state held by a run besides M: the sides of the cut and the largest ALT state
+    long vertexStateBytes() {
+        return stream.vertexCount() + 2L * ((stream.vertexCount() + 7) / 8) + altStateBytes;
+    }
+
+    private void drawCut(IntMatching M, byte[] sides) {
+        for (int u = 0; u < sides.length; u++) {
+            int v = M.mate(u);
+            if (v == -1) {
+                sides[u] = (byte) (random.nextBoolean() ? Bipartition.LEFT : Bipartition.RIGHT);
+            } else if (u < v) {
+                sides[u] = (byte) (random.nextBoolean() ? Bipartition.LEFT : Bipartition.RIGHT);
+                sides[v] = (byte) (Bipartition.RIGHT - sides[u]);
+            }
+        }
+    }
+
+    private static Bipartition toBipartition(byte[] sides) {
+        BitSet left = new BitSet(sides.length);
+        BitSet right = new BitSet(sides.length);
+        for (int v = 0; v < sides.length; v++) {
+            if (sides[v] == Bipartition.LEFT) {
+                left.set(v);
+            } else {
+                right.set(v);
+            }
+        }
+        return Bipartition.of(sides.length, left, right);
+    }
+
+    /* Replace M by the symmetric difference of M and the components of M xor A with more edges of A than of M. Such a
+     * component is a path that starts and ends with an edge of A at a vertex free in M, so each one is found by walking
+     * from such a vertex, alternately along A and M; a walk that ends with an edge of M is not augmenting. */
+    static void flipAugmentingComponents(IntMatching M, IntMatching A) {
+        int n = M.vertexCount();
+        BitSet visited = new BitSet(n);
+        int[] path = new int[16];
+        for (int start = 0; start < n; start++) {
+            if (M.isMatched(start) || !A.isMatched(start) || visited.get(start)) {
+                continue;
+            }
+            int length = 0;
+            int v = start;
+            boolean augmenting;
+            while (true) {
+                int w = A.mate(v);
+                if (length + 2 > path.length) {
+                    path = Arrays.copyOf(path, 2 * path.length);
+                }
+                path[length++] = v;
+                path[length++] = w;
+                int next = M.mate(w);
+                if (next == -1) {
+                    augmenting = true;
+                    break;
+                }
+                if (!A.isMatched(next)) {
+                    augmenting = false;
+                    break;
+                }
+                v = next;
+            }
+            visited.set(start);
+            visited.set(path[length - 1]); // the other end, if free in M, starts the same path backwards
+            if (augmenting) {
+                for (int e = 1; e + 1 < length; e += 2) {
+                    M.remove(path[e]);
+                }
+                for (int e = 0; e < length; e += 2) {
+                    M.add(path[e], path[e + 1]);
+                }
+            }
+        }
+    }
+
+    /* The edges of a stream that cross a cut, as a view of the stream: positions and size are those of the underlying
+     * stream, whose passes skip the other edges. Every pass over the view is a pass over the stream and is counted by
+     * the tracker. */
+    private static class CutEdgeStream implements EdgeStream {
+        private final EdgeStream stream;
+        private final byte[] sides;
+        private final PassBudget.Tracker tracker;
+
+        private CutEdgeStream(EdgeStream stream, byte[] sides, PassBudget.Tracker tracker) {
+            this.stream = stream;
+            this.sides = sides;
+            this.tracker = tracker;
+        }
+
+        @Override
+        public long size() {
+            return stream.size();
+        }
+
+        @Override
+        public int vertexCount() {
+            return stream.vertexCount();
+        }
+
+        @Override
+        public Cursor pass(long from, long to) {
+            if (tracker.isExhausted()) {
+                throw new PassBudget.ExhaustedException();
+            }
+            tracker.recordPass();
+            Cursor cursor = stream.pass(from, to);
+            return new Cursor() {
+                @Override
+                public boolean next() {
+                    while (cursor.next()) {
+                        if (sides[cursor.source()] != sides[cursor.target()]) {
+                            return true;
+                        }
+                    }
+                    return false;
+                }
+
+                @Override
+                public int source() {
+                    return cursor.source();
+                }
+
+                @Override
+                public int target() {
+                    return cursor.target();
+                }
+
+                @Override
+                public long position() {
+                    return cursor.position();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,181 @@
+import java.util.BitSet;
+
+/* A partition of the vertices of a bipartite edge stream into a left and a right side, such that every edge joins a
+ * left vertex to a right vertex. Vertices without edges belong to neither side. A bipartition is either detected from
+ * the stream, given explicitly as two sets of vertices, or given as a split point: the vertices below it on the left
+ * and the others on the right, which lets the side of a vertex be found by a single comparison. */
+public class Bipartition {
+    public static final int NONE = -1;
+    public static final int LEFT = 0;
+    public static final int RIGHT = 1;
+
+    private final byte[] sides; // null when the sides are given by a split point
+    private final int splitPoint;
+    private final int leftCount;
+    private final int rightCount;
+
+    private Bipartition(int vertexCount, int splitPoint) {
+        this.sides = null;
+        this.splitPoint = splitPoint;
+        this.leftCount = splitPoint;
+        this.rightCount = vertexCount - splitPoint;
+    }
+
+    private Bipartition(byte[] sides) {
+        this.sides = sides;
+        this.splitPoint = -1;
+        int left = 0;
+        int right = 0;
+        for (byte side : sides) {
+            if (side == LEFT) {
+                left++;
+            } else if (side == RIGHT) {
+                right++;
+            }
+        }
+        this.leftCount = left;
+        this.rightCount = right;
+    }
+
+    /* Find a bipartition of the stream with a single pass, or return null if the stream is not bipartite (i.e. it has
+     * an odd cycle or a self-loop). Each edge is merged into a union-find structure whose links carry the parity of
+     * the path to their parent, so an edge whose endpoints are already connected closes an odd cycle exactly when
+     * their parities to the common root are equal. In every connected component the root is placed on the left side.
+     * Runs in near-linear time with O(n) memory, independently of the order of the edges. */
+    public static Bipartition detect(EdgeStream stream) {
+        ParityUnionFind unionFind = new ParityUnionFind(stream.vertexCount());
+        EdgeStream.Cursor cursor = stream.pass();
+        while (cursor.next()) {
+            if (!unionFind.unionOpposite(cursor.source(), cursor.target())) {
+                return null;
+            }
+        }
+        byte[] sides = new byte[stream.vertexCount()];
+        for (int v = 0; v < sides.length; v++) {
+            sides[v] = unionFind.isIsolated(v) ? NONE : (byte) unionFind.parityToRoot(v);
+        }
+        return new Bipartition(sides);
+    }
+
+    // The vertices 0, 1, ..., splitPoint - 1 on the left and splitPoint, ..., vertexCount - 1 on the right
+    public static Bipartition split(int vertexCount, int splitPoint) {
+        if (splitPoint < 0 || splitPoint > vertexCount) {
+            throw new IllegalArgumentException("The split point must lie between 0 and the number of vertices.");
+        }
+        return new Bipartition(vertexCount, splitPoint);
+    }
+
+    // The vertices in left on the left and those in right on the right; vertices in neither set belong to no side
+    public static Bipartition of(int vertexCount, BitSet left, BitSet right) {
+        if (left.intersects(right)) {
+            throw new IllegalArgumentException("The sides of a bipartition must be disjoint.");
+        }
+        if (left.length() > vertexCount || right.length() > vertexCount) {
+            throw new IllegalArgumentException("The sides of a bipartition must only contain vertices below " + vertexCount + ".");
+        }
+        byte[] sides = new byte[vertexCount];
+        for (int v = 0; v < vertexCount; v++) {
+            sides[v] = (byte) (left.get(v) ? LEFT : (right.get(v) ? RIGHT : NONE));
+        }
+        return new Bipartition(sides);
+    }
+
+    public int vertexCount() {
+        return (sides == null) ? leftCount + rightCount : sides.length;
+    }
+
+    // The split point of a bipartition given by split, or -1 if the sides are arbitrary sets
+    public int splitPoint() {
+        return splitPoint;
+    }
+
+    // LEFT, RIGHT or NONE
+    public int side(int v) {
+        if (sides == null) {
+            return (v < splitPoint) ? LEFT : RIGHT;
+        }
+        return sides[v];
+    }
+
+    public boolean isLeft(int v) {
+        return side(v) == LEFT;
+    }
+
+    public boolean isRight(int v) {
+        return side(v) == RIGHT;
+    }
+
+    public int leftCount() {
+        return leftCount;
+    }
+
+    public int rightCount() {
+        return rightCount;
+    }
+
+    /* Union-find over int arrays with union by size and path compression, where parity[v] is the parity of the path
+     * from v to parent[v] */
+    private static class ParityUnionFind {
+        private final int[] parent;
+        private final int[] size;
+        private final byte[] parity;
+
+        private ParityUnionFind(int n) {
+            parent = new int[n];
+            size = new int[n];
+            parity = new byte[n];
+            for (int v = 0; v < n; v++) {
+                parent[v] = v;
+                size[v] = 1;
+            }
+        }
+
+        // Root of v, compressing the path so that afterwards v is the root or a child of the root
+        private int find(int v) {
+            int root = v;
+            int pathParity = 0;
+            while (parent[root] != root) {
+                pathParity ^= parity[root];
+                root = parent[root];
+            }
+            while (parent[v] != root) { // pathParity is the parity from v to the root
+                int next = parent[v];
+                int nextParity = pathParity ^ parity[v];
+                parent[v] = root;
+                parity[v] = (byte) pathParity;
+                v = next;
+                pathParity = nextParity;
+            }
+            return root;
+        }
+
+        private int parityToRoot(int v) {
+            return (find(v) == v) ? 0 : parity[v];
+        }
+
+        // Record that u and v lie on opposite sides; returns false if they are already known to lie on the same side
+        private boolean unionOpposite(int u, int v) {
+            int rootU = find(u);
+            int rootV = find(v);
+            int parityU = (rootU == u) ? 0 : parity[u];
+            int parityV = (rootV == v) ? 0 : parity[v];
+            if (rootU == rootV) {
+                return parityU != parityV;
+            }
+            if (size[rootU] < size[rootV]) {
+                int swap = rootU;
+                rootU = rootV;
+                rootV = swap;
+            }
+            parent[rootV] = rootU;
+            parity[rootV] = (byte) (parityU ^ parityV ^ 1);
+            size[rootU] += size[rootV];
+            return true;
+        }
+
+        // Whether v is a root of a component with no other vertex, i.e. v has no edges
+        private boolean isIsolated(int v) {
+            return parent[v] == v && size[v] == 1;
+        }
+    }
+}
@@ -0,0 +1,603 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/* An edge stream read from a compressed edge file, for multi-pass runs that are bound by disk reads. The edges are
+ * sorted by source and then by target, and split into blocks of a fixed number of edges. Within a block, the edges of
+ * each source form a run, described by the delta of its source from the previous run's (from 0 for the first run of
+ * the block), its length and its first target; the other targets are stored as gaps from the previous target of the
+ * run. A block is
+ *
+ *   varint runCount                                  unsigned LEB128
+ *   packed sourceDeltas, runLengths, firstTargets    runCount values each
+ *   packed gaps                                      one per edge that does not start a run
+ *
+ * where each packed sequence is bit-packed with frame of reference in groups of GROUP values: a byte holding the bit
+ * width of the largest value of the group, followed by the values in that many bits each, little-endian. On graphs
+ * whose sources have more than a few edges an edge costs about the bit width of its target gap instead of 8 bytes in
+ * a MappedEdgeStream file, and unlike varints the decoding loop has no data-dependent branches. Every block is
+ * self-contained, so a pass over [from, to) starts decoding at the block of from.
+ *
+ * File format (little-endian):
+ *   int  magic          MAGIC
+ *   int  version        VERSION
+ *   int  vertexCount
+ *   int  edgesPerBlock
+ *   long edgeCount
+ *   long indexOffset    offset of the block index
+ *   int  maxBlockBytes  length of the longest block
+ *   int  reserved       0
+ *   the blocks, then the index: blockCount + 1 longs, the offset of every block followed by indexOffset
+ *
+ * The header and the index are validated when the file is opened: the blocks must lie between the header and the
+ * index in increasing order, each no longer than maxBlockBytes, itself no more than a block of edgesPerBlock edges can
+ * take, so that a corrupt file fails to open with an IOException instead of failing a pass or over-allocating. Each
+ * block is checked as it is decoded (its run count, packed groups, run lengths and endpoints), and a corrupt one fails
+ * the pass with an IOException wrapped in an UncheckedIOException, as in MappedEdgeStream.
+ *
+ * Cursors read and decode a whole block at a time with positional reads of the file. By default the next block is
+ * read and decoded on a prefetch thread while the cursor iterates over the current one, so the decoding cost is
+ * hidden behind the algorithm's own work on each edge. The stream holds the file open until it is closed. */
+public class CompressedEdgeStream implements EdgeStream, AutoCloseable {
+    public static final int MAGIC = 0x4544475A; // "EDGZ"
+    public static final int VERSION = 1;
+    static final int HEADER_BYTES = 40;
+    static final int DEFAULT_EDGES_PER_BLOCK = 1 << 16;
+    static final int GROUP = 128;
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final ExecutorService PREFETCH = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "edge-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Path path;
+    private final FileChannel channel;
+    private final int vertexCount;
+    private final long size;
+    private final int edgesPerBlock;
+    private final int maxBlockBytes;
+    private final long[] blockOffsets; // offset of every block, followed by the offset of the index
+    private final boolean prefetch;
+
+    private CompressedEdgeStream(Path path, boolean prefetch) throws IOException {
+        this.path = path;
+        this.prefetch = prefetch;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(header, 0);
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC) {
+                throw new IOException(path + " is not a compressed edge file.");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported compressed edge file version " + version + " in " + path);
+            }
+            this.vertexCount = header.getInt();
+            this.edgesPerBlock = header.getInt();
+            this.size = header.getLong();
+            long indexOffset = header.getLong();
+            this.maxBlockBytes = header.getInt();
+            if (vertexCount < 0 || edgesPerBlock <= 0 || size < 0 || indexOffset < HEADER_BYTES) {
+                throw new IOException(path + " has a corrupt header.");
+            }
+            if (maxBlockBytes < 0 || maxBlockBytes > maxEncodedBytes(edgesPerBlock)
+                    || maxBlockBytes > Integer.MAX_VALUE - Long.BYTES) { // a Block reads 7 bytes past the last one
+                throw new IOException(path + " has a corrupt header: a block of " + edgesPerBlock
+                        + " edges cannot take " + maxBlockBytes + " bytes.");
+            }
+            long blocks = size / edgesPerBlock + ((size % edgesPerBlock == 0) ? 0 : 1);
+            if (blocks >= Integer.MAX_VALUE / 8) {
+                throw new IOException(path + " has a corrupt header: " + blocks + " blocks are too many to index.");
+            }
+            int blockCount = (int) blocks;
+            if (channel.size() - 8L * (blockCount + 1) < indexOffset) {
+                throw new IOException(path + " is truncated: expected " + blockCount + " blocks.");
+            }
+            ByteBuffer index = ByteBuffer.allocate(8 * (blockCount + 1)).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(index, indexOffset);
+            index.flip();
+            this.blockOffsets = new long[blockCount + 1];
+            for (int b = 0; b <= blockCount; b++) {
+                blockOffsets[b] = index.getLong();
+            }
+            validateIndex(indexOffset);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Check that the block offsets are increasing, lie in [HEADER_BYTES, indexOffset] and end with indexOffset, and that
+    // every block is at most maxBlockBytes long
+    private void validateIndex(long indexOffset) throws IOException {
+        int blockCount = blockOffsets.length - 1;
+        for (int b = 0; b <= blockCount; b++) {
+            if (blockOffsets[b] < HEADER_BYTES || blockOffsets[b] > indexOffset) {
+                throw new IOException(path + " has a corrupt block index: offset " + blockOffsets[b] + " of block " + b
+                        + " is outside [" + HEADER_BYTES + ", " + indexOffset + "].");
+            }
+        }
+        if (blockOffsets[blockCount] != indexOffset) {
+            throw new IOException(path + " has a corrupt block index: the blocks end at " + blockOffsets[blockCount]
+                    + " instead of the index offset " + indexOffset + ".");
+        }
+        for (int b = 0; b < blockCount; b++) {
+            long length = blockOffsets[b + 1] - blockOffsets[b];
+            if (length <= 0 || length > maxBlockBytes) {
+                throw new IOException(path + " has a corrupt block index: block " + b + " spans " + length
+                        + " bytes, outside [1, " + maxBlockBytes + "].");
+            }
+        }
+    }
+
+    // Most bytes a block of edges edges can take: a varint, three packed values per run, a packed gap per other edge
+    // (at most 4 bytes each) and a width byte per group
+    static long maxEncodedBytes(int edges) {
+        return 5 + 4L * 3 * edges + 4L * (edges / GROUP + 1);
+    }
+
+    public static CompressedEdgeStream open(Path path) throws IOException {
+        return new CompressedEdgeStream(path, true);
+    }
+
+    // Open with or without the prefetch thread; without it, every block is decoded by the thread of the pass
+    public static CompressedEdgeStream open(Path path, boolean prefetch) throws IOException {
+        return new CompressedEdgeStream(path, prefetch);
+    }
+
+    /* Write every edge of the stream to a compressed edge file at path. The edges are sorted in memory first (8 bytes
+     * per edge), so the file streams them in a different order than the given stream; edges that are already sorted,
+     * e.g. by an external sort, can be written with a Writer instead. */
+    public static void write(EdgeStream stream, Path path) throws IOException {
+        write(stream, path, DEFAULT_EDGES_PER_BLOCK);
+    }
+
+    static void write(EdgeStream stream, Path path, int edgesPerBlock) throws IOException {
+        if (stream.size() > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Streams of more than 2^31 edges must be sorted externally and written with a Writer.");
+        }
+        long[] edges = new long[(int) stream.size()];
+        EdgeStream.Cursor cursor = stream.pass();
+        for (int e = 0; cursor.next(); e++) {
+            edges[e] = ((long) cursor.source() << 32) | cursor.target();
+        }
+        Arrays.parallelSort(edges);
+        try (Writer writer = new Writer(path, stream.vertexCount(), edgesPerBlock)) {
+            for (long edge : edges) {
+                writer.addEdge((int) (edge >>> 32), (int) edge);
+            }
+        }
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    // Number of bytes of encoded blocks, which is what a full pass reads from the file
+    public long encodedBytes() {
+        return blockOffsets[blockOffsets.length - 1] - HEADER_BYTES;
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public int vertexCount() {
+        return vertexCount;
+    }
+
+    @Override
+    public Cursor pass(long from, long to) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("Invalid pass range [" + from + ", " + to + ") for a stream of size " + size);
+        }
+        return new BlockCursor(from, to);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            position += read;
+        }
+    }
+
+    // Read block b of the file and decode it into block
+    private Block decode(int b, Block block) {
+        int length = (int) (blockOffsets[b + 1] - blockOffsets[b]);
+        ByteBuffer buffer = ByteBuffer.wrap(block.bytes, 0, length);
+        try {
+            readFully(buffer, blockOffsets[b]);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (buffer.hasRemaining()) {
+            throw new UncheckedIOException(new IOException(path + " is truncated in block " + b + "."));
+        }
+        byte[] bytes = block.bytes;
+        int count = (int) Math.min(edgesPerBlock, size - (long) b * edgesPerBlock);
+        int offset = 0;
+        int runCount = 0;
+        int shift = 0;
+        byte next;
+        do {
+            if (offset == length || shift > 28) {
+                throw corruptBlock(b);
+            }
+            next = bytes[offset++];
+            runCount |= (next & 0x7F) << shift;
+            shift += 7;
+        } while (next < 0);
+        if (runCount < 1 || runCount > count) {
+            throw corruptBlock(b);
+        }
+        offset = unpack(bytes, offset, length, runCount, block.sourceDeltas);
+        offset = unpack(bytes, offset, length, runCount, block.runLengths);
+        offset = unpack(bytes, offset, length, runCount, block.firstTargets);
+        if (unpack(bytes, offset, length, count - runCount, block.gaps) < 0) {
+            throw corruptBlock(b);
+        }
+        int[] sources = block.sources;
+        int[] targets = block.targets;
+        int[] gaps = block.gaps;
+        int source = 0;
+        int e = 0;
+        int g = 0;
+        for (int run = 0; run < runCount; run++) {
+            source += block.sourceDeltas[run];
+            int runLength = block.runLengths[run];
+            int target = block.firstTargets[run];
+            if (source < 0 || source >= vertexCount || runLength < 1 || runLength > count - e) {
+                throw corruptBlock(b);
+            }
+            int runEnd = e + runLength;
+            Arrays.fill(sources, e, runEnd, source);
+            if (target < 0 || target >= vertexCount) {
+                throw corruptBlock(b);
+            }
+            targets[e++] = target;
+            for (; e < runEnd; e++) {
+                target += gaps[g++];
+                if (target < 0 || target >= vertexCount) {
+                    throw corruptBlock(b);
+                }
+                targets[e] = target;
+            }
+        }
+        if (e != count) {
+            throw corruptBlock(b);
+        }
+        block.count = count;
+        return block;
+    }
+
+    private UncheckedIOException corruptBlock(int b) {
+        return new UncheckedIOException(new IOException(path + " is corrupt in block " + b + "."));
+    }
+
+    /* Unpack count values bit-packed in groups starting at offset of bytes into values, returning the offset that
+     * follows them, or -1 if offset is -1 or the groups are not well formed within the first limit bytes. Each value is
+     * extracted from the 8 bytes starting at its first byte, so bytes must extend 7 bytes beyond limit. */
+    static int unpack(byte[] bytes, int offset, int limit, int count, int[] values) {
+        if (offset < 0 || count < 0) {
+            return -1;
+        }
+        for (int start = 0; start < count; start += GROUP) {
+            int end = Math.min(count, start + GROUP);
+            if (offset >= limit) {
+                return -1;
+            }
+            int width = bytes[offset++];
+            if (width < 0 || width > 32 || offset + ((long) width * (end - start) + 7) / 8 > limit) {
+                return -1;
+            }
+            long mask = (1L << width) - 1;
+            long bit = 8L * offset;
+            for (int i = start; i < end; i++, bit += width) {
+                long word = (long) LONGS.get(bytes, (int) (bit >>> 3));
+                values[i] = (int) ((word >>> (bit & 7)) & mask);
+            }
+            offset = (int) ((bit + 7) >>> 3);
+        }
+        return offset;
+    }
+
+    // Pack the first count values, all non-negative, in groups starting at offset of bytes, returning the offset that
+    // follows them; bytes must have room for 4 bytes per value and one per group
+    static int pack(int[] values, int count, byte[] bytes, int offset) {
+        for (int start = 0; start < count; start += GROUP) {
+            int end = Math.min(count, start + GROUP);
+            int bits = 0;
+            for (int i = start; i < end; i++) {
+                bits |= values[i];
+            }
+            int width = 32 - Integer.numberOfLeadingZeros(bits);
+            bytes[offset++] = (byte) width;
+            long buffer = 0;
+            int buffered = 0;
+            for (int i = start; i < end; i++) {
+                buffer |= (values[i] & 0xFFFFFFFFL) << buffered;
+                buffered += width;
+                while (buffered >= 8) {
+                    bytes[offset++] = (byte) buffer;
+                    buffer >>>= 8;
+                    buffered -= 8;
+                }
+            }
+            if (buffered > 0) {
+                bytes[offset++] = (byte) buffer;
+            }
+        }
+        return offset;
+    }
+
+    // The decoded edges of one block, with the buffers its bytes are read and unpacked into
+    private class Block {
+        private final int[] sources = new int[edgesPerBlock];
+        private final int[] targets = new int[edgesPerBlock];
+        private final int[] sourceDeltas = new int[edgesPerBlock];
+        private final int[] runLengths = new int[edgesPerBlock];
+        private final int[] firstTargets = new int[edgesPerBlock];
+        private final int[] gaps = new int[edgesPerBlock];
+        private final byte[] bytes = new byte[maxBlockBytes + Long.BYTES - 1];
+        private int count;
+    }
+
+    /* Iterates over the decoded edges of the current block. With prefetching, the following block of the pass is
+     * decoded on the prefetch thread into a second Block, and the two are swapped when the current one is exhausted;
+     * a cursor abandoned before the end of its pass leaves at most one decoding task behind. Within a block next only
+     * increments index, and source and target read the decoded arrays: a cursor that does not escape the loop of an
+     * algorithm then costs no stores per edge besides its index. */
+    private class BlockCursor implements Cursor {
+        private final long end;
+        private int block; // index of the current block
+        private long blockStart; // position of the first edge of the current block
+        private Block current;
+        private Block spare;
+        private CompletableFuture<Block> next; // the following block, being decoded into spare
+        private int[] sources; // the decoded edges of current
+        private int[] targets;
+        private int limit; // number of edges of current within the pass
+        private int index; // index of the current edge within current
+
+        private BlockCursor(long from, long to) {
+            this.end = to;
+            this.block = (int) (from / edgesPerBlock);
+            this.blockStart = from;
+            this.index = -1;
+            if (from < to) {
+                this.blockStart = (long) block * edgesPerBlock;
+                this.current = decode(block, new Block());
+                this.spare = new Block();
+                this.sources = current.sources;
+                this.targets = current.targets;
+                this.limit = (int) Math.min(current.count, to - blockStart);
+                this.index = (int) (from - blockStart) - 1;
+                prefetchNext();
+            }
+        }
+
+        private void prefetchNext() {
+            int following = block + 1;
+            if (prefetch && (long) following * edgesPerBlock < end) {
+                Block target = spare;
+                next = CompletableFuture.supplyAsync(() -> decode(following, target), PREFETCH);
+            } else {
+                next = null;
+            }
+        }
+
+        // Move to the following block of the pass, returning false (with the position at the end) if there is none
+        private boolean advanceBlock() {
+            if (blockStart + limit >= end) {
+                index = limit;
+                return false;
+            }
+            Block finished = current;
+            block++;
+            blockStart += limit;
+            if (next == null) {
+                current = decode(block, spare);
+            } else {
+                try {
+                    current = next.join();
+                } catch (CompletionException e) {
+                    if (e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) e.getCause();
+                    }
+                    throw e;
+                }
+            }
+            spare = finished;
+            sources = current.sources;
+            targets = current.targets;
+            limit = (int) Math.min(current.count, end - blockStart);
+            index = 0;
+            prefetchNext();
+            return true;
+        }
+
+        @Override
+        public boolean next() {
+            return ++index < limit || advanceBlock();
+        }
+
+        @Override
+        public int source() {
+            return sources[index];
+        }
+
+        @Override
+        public int target() {
+            return targets[index];
+        }
+
+        @Override
+        public long position() {
+            return blockStart + index;
+        }
+    }
+
+    /* Appends edges to a new compressed edge file, encoding one block at a time; the index and the header are written
+     * on close. Edges must be added sorted by source and then by target (repeated edges are allowed). */
+    public static class Writer implements AutoCloseable {
+        private final FileChannel channel;
+        private final int vertexCount;
+        private final int edgesPerBlock;
+        private final int[] sources;
+        private final int[] targets;
+        private final int[] sourceDeltas; // run description of the block being encoded
+        private final int[] runLengths;
+        private final int[] firstTargets;
+        private final int[] gaps;
+        private byte[] bytes = new byte[1 << 16];
+        private long[] blockOffsets = new long[16];
+        private int blockCount = 0;
+        private int blockEdges = 0;
+        private long position = HEADER_BYTES;
+        private int maxBlockBytes = 0;
+        private long size = 0;
+        private int lastSource = 0;
+        private int lastTarget = 0;
+
+        public Writer(Path path, int vertexCount) throws IOException {
+            this(path, vertexCount, DEFAULT_EDGES_PER_BLOCK);
+        }
+
+        public Writer(Path path, int vertexCount, int edgesPerBlock) throws IOException {
+            if (edgesPerBlock <= 0) {
+                throw new IllegalArgumentException("A block must hold a positive number of edges.");
+            }
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.vertexCount = vertexCount;
+            this.edgesPerBlock = edgesPerBlock;
+            this.sources = new int[edgesPerBlock];
+            this.targets = new int[edgesPerBlock];
+            this.sourceDeltas = new int[edgesPerBlock];
+            this.runLengths = new int[edgesPerBlock];
+            this.firstTargets = new int[edgesPerBlock];
+            this.gaps = new int[edgesPerBlock];
+        }
+
+        public void addEdge(int source, int target) {
+            if (source < 0 || source >= vertexCount || target < 0 || target >= vertexCount) {
+                throw new IllegalArgumentException("Edge {" + source + ", " + target + "} has an endpoint outside [0, " + vertexCount + ").");
+            }
+            if (size > 0 && (source < lastSource || (source == lastSource && target < lastTarget))) {
+                throw new IllegalArgumentException("Edge {" + source + ", " + target + "} is out of order: edges must be sorted by source and then by target.");
+            }
+            sources[blockEdges] = source;
+            targets[blockEdges] = target;
+            lastSource = source;
+            lastTarget = target;
+            size++;
+            if (++blockEdges == edgesPerBlock) {
+                flushBlock();
+            }
+        }
+
+        private void flushBlock() {
+            if (blockEdges == 0) {
+                return;
+            }
+            int runCount = 0;
+            int gapCount = 0;
+            int previousSource = 0;
+            for (int e = 0; e < blockEdges; e++) {
+                if (e == 0 || sources[e] != sources[e - 1]) {
+                    sourceDeltas[runCount] = sources[e] - previousSource;
+                    runLengths[runCount] = 0;
+                    firstTargets[runCount++] = targets[e];
+                    previousSource = sources[e];
+                } else {
+                    gaps[gapCount++] = targets[e] - targets[e - 1];
+                }
+                runLengths[runCount - 1]++;
+            }
+            int capacity = 5 + 4 * (3 * runCount + gapCount) + 4 * (blockEdges / GROUP + 1); // within maxEncodedBytes
+            if (capacity > bytes.length) {
+                bytes = new byte[capacity];
+            }
+            int length = putVarint(bytes, 0, runCount);
+            length = pack(sourceDeltas, runCount, bytes, length);
+            length = pack(runLengths, runCount, bytes, length);
+            length = pack(firstTargets, runCount, bytes, length);
+            length = pack(gaps, gapCount, bytes, length);
+            if (blockCount == blockOffsets.length) {
+                blockOffsets = Arrays.copyOf(blockOffsets, 2 * blockCount);
+            }
+            blockOffsets[blockCount++] = position;
+            write(ByteBuffer.wrap(bytes, 0, length));
+            maxBlockBytes = Math.max(maxBlockBytes, length);
+            blockEdges = 0;
+        }
+
+        private static int putVarint(byte[] bytes, int offset, int value) {
+            while ((value & ~0x7F) != 0) {
+                bytes[offset++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[offset++] = (byte) value;
+            return offset;
+        }
+
+        private void write(ByteBuffer buffer) {
+            try {
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flushBlock();
+                long indexOffset = position;
+                ByteBuffer index = ByteBuffer.allocate(8 * (blockCount + 1)).order(ByteOrder.LITTLE_ENDIAN);
+                for (int b = 0; b < blockCount; b++) {
+                    index.putLong(blockOffsets[b]);
+                }
+                index.putLong(indexOffset);
+                index.flip();
+                write(index);
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(VERSION).putInt(vertexCount).putInt(edgesPerBlock).putLong(size)
+                        .putLong(indexOffset).putInt(maxBlockBytes).putInt(0);
+                header.flip();
+                long headerPosition = 0;
+                while (header.hasRemaining()) {
+                    headerPosition += channel.write(header, headerPosition);
+                }
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
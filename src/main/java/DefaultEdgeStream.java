@@ -0,0 +1,91 @@
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.DefaultUndirectedGraph;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/* Adapter exposing a List<DefaultEdge> as a packed EdgeStream. The Integer vertex labels of the edges are compacted
+ * to the identifiers 0, 1, ..., n - 1 (in order of first appearance in the list) once, on construction, so that the
+ * algorithms never touch the DefaultEdge objects or box vertex identifiers while making passes. */
+public class DefaultEdgeStream extends ArrayEdgeStream {
+    private final List<DefaultEdge> edges;
+    private final int[] labels;
+    private EdgeIndex index; // built on the first translation of a matching
+
+    public DefaultEdgeStream(List<DefaultEdge> edges) {
+        this(edges, new Compaction(edges));
+    }
+
+    private DefaultEdgeStream(List<DefaultEdge> edges, Compaction compaction) {
+        super(compaction.sources, compaction.targets, compaction.labels.length);
+        this.edges = edges;
+        this.labels = compaction.labels;
+    }
+
+    // The DefaultEdge at the given position of the stream
+    public DefaultEdge edgeAt(long position) {
+        return edges.get((int) position);
+    }
+
+    // The original Integer label of the compacted vertex v
+    public int label(int v) {
+        return labels[v];
+    }
+
+    public List<DefaultEdge> edges() {
+        return edges;
+    }
+
+    // Index of the edges of the stream by their endpoints, built with one pass the first time it is needed
+    public synchronized EdgeIndex index() {
+        if (index == null) {
+            index = EdgeIndex.build(this);
+        }
+        return index;
+    }
+
+    /* Translate a matching over the compacted vertices back into the DefaultEdges of the stream. Matched pairs are
+     * resolved through the edge index, so no pass over the stream is made once the index exists. */
+    public Set<DefaultEdge> toEdgeSet(IntMatching matching) {
+        EdgeIndex index = index();
+        Set<DefaultEdge> edgeSet = new HashSet<>();
+        for (int u = 0; u < matching.vertexCount(); u++) {
+            int v = matching.mate(u);
+            if (v > u) {
+                int position = index.position(u, v);
+                if (position == -1) {
+                    throw new IllegalArgumentException("Matched pair {" + u + ", " + v + "} is not an edge of the stream.");
+                }
+                edgeSet.add(edgeAt(position));
+            }
+        }
+        return edgeSet;
+    }
+
+    private static class Compaction {
+        private final int[] sources;
+        private final int[] targets;
+        private final int[] labels;
+
+        private Compaction(List<DefaultEdge> edges) {
+            Graph<Integer, DefaultEdge> g = new DefaultUndirectedGraph<>(DefaultEdge.class);
+            Map<Integer, Integer> ids = new HashMap<>();
+            sources = new int[edges.size()];
+            targets = new int[edges.size()];
+            int i = 0;
+            for (DefaultEdge edge : edges) {
+                sources[i] = ids.computeIfAbsent(g.getEdgeSource(edge), label -> ids.size());
+                targets[i] = ids.computeIfAbsent(g.getEdgeTarget(edge), label -> ids.size());
+                i++;
+            }
+            labels = new int[ids.size()];
+            for (Map.Entry<Integer, Integer> entry : ids.entrySet()) {
+                labels[entry.getValue()] = entry.getKey();
+            }
+        }
+    }
+}
@@ -0,0 +1,186 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/* Coordinator of the ALT auction executed over edge shards held by ALTWorkers, as in the Massively Parallel Computation
+ * algorithm of Assadi, Liu, and Tarjan. The coordinator keeps the prices and allocations; each round it
+ *
+ * 1. sends the price changes of the last round to every worker and merges the minimum prices they report into the
+ *    demand of every bidder;
+ * 2. sends the demands of the unallocated bidders whose demand is below 1 to every worker, and merges the workers'
+ *    local maximal-matching proposals greedily, in worker order, into a matching of the eligible subgraph. Accepted
+ *    pairs are broadcast back and the workers propose again among their edges whose endpoints are both free, until no
+ *    worker proposes anything: the merged matching is then maximal in the whole eligible subgraph. All proposals of the
+ *    first worker are always accepted, so every exchange makes progress, and in practice a round takes few of them;
+ * 3. allocates the matched items to their bidders and raises their prices by eps, as ALT does.
+ *
+ * Each run first sends a start request to every worker, setting all its prices to 0 and clearing its round state, so
+ * the same workers serve any number of runs. Workers are called concurrently on the pool. The result is deterministic,
+ * and with a single worker over the whole stream it is the matching ALT finds. Only O(n) values cross the connections
+ * each round, never the edges. */
+public class DistributedALT {
+    private static final int UNALLOCATED = -1;
+    private final List<ALTWorker.Connection> workers;
+    private final Bipartition bipartition;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private int roundCount = 0; // rounds run by the last run
+    private long exchangeCount = 0; // requests made to every worker by the last run
+
+    public DistributedALT(List<ALTWorker.Connection> workers, Bipartition bipartition) {
+        if (workers.isEmpty()) {
+            throw new IllegalArgumentException("A distributed auction needs at least one worker.");
+        }
+        if (bipartition == null) {
+            throw new IllegalArgumentException("Argument to DistributedALT must be the bipartition of a bipartite graph.");
+        }
+        this.workers = new ArrayList<>(workers);
+        this.bipartition = bipartition;
+    }
+
+    // Auction over numWorkers in-process workers, each holding a contiguous shard of stream
+    public static DistributedALT inProcess(EdgeStream stream, Bipartition bipartition, int numWorkers) {
+        if (bipartition == null) {
+            throw new IllegalArgumentException("Argument to DistributedALT must be an edge stream of a bipartite graph.");
+        }
+        EdgeShards shards = new EdgeShards(stream.size(), numWorkers);
+        List<ALTWorker.Connection> workers = new ArrayList<>();
+        for (int shard = 0; shard < shards.count(); shard++) {
+            workers.add(ALTWorker.local(new ALTWorker(stream, shards.from(shard), shards.to(shard), bipartition)));
+        }
+        return new DistributedALT(workers, bipartition);
+    }
+
+    // Pool on which the requests to the workers are made concurrently
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    // Number of rounds run by the last run: at most ceil(2/eps^2), fewer if it converged
+    public int getRoundCount() {
+        return roundCount;
+    }
+
+    /* Number of request-reply exchanges with each worker made by the last run, each costing the worker one pass. The
+     * start request of a run makes no pass and is not counted. */
+    public long getExchangeCount() {
+        return exchangeCount;
+    }
+
+    // Close the connections to all workers
+    public void close() {
+        for (ALTWorker.Connection worker : workers) {
+            worker.close();
+        }
+    }
+
+    public IntMatching findApproximateIntMatching(double eps) {
+        if (eps <= 0 || eps >= 1) {
+            throw new IllegalArgumentException("Argument to findApproximateMatching must be a real number strictly between 0 and 1");
+        }
+        int n = bipartition.vertexCount();
+        double[] prices = new double[n];
+        double[] demands = new double[n];
+        int[] allocations = new int[n]; // item allocated to each bidder and bidder allocated to each item
+        int[] taken = new int[n]; // round in which each vertex was taken by the merged maximal matching
+        Arrays.fill(allocations, UNALLOCATED);
+        int numWorkers = workers.size();
+        ALTWorker.VertexValues[] reportedDemands = new ALTWorker.VertexValues[numWorkers];
+        int[][] proposals = new int[numWorkers][];
+        ALTWorker.VertexValues priceChanges = new ALTWorker.VertexValues(new int[0], new double[0]);
+        ALTWorker.VertexValues initialPrices = priceChanges; // every price at 0
+        EdgeShards.forRange(pool, 0, numWorkers, w -> workers.get(w).start(initialPrices));
+        int maxIterations = (int) Math.ceil(2 / (eps * eps));
+        roundCount = 0;
+        exchangeCount = 0;
+        for (int i = 0; i < maxIterations; i++) {
+            int round = i + 1;
+            ALTWorker.VertexValues changes = priceChanges;
+            EdgeShards.forRange(pool, 0, numWorkers, w -> reportedDemands[w] = workers.get(w).demands(changes));
+            exchangeCount++;
+            Arrays.fill(demands, Double.POSITIVE_INFINITY);
+            for (ALTWorker.VertexValues reported : reportedDemands) {
+                for (int k = 0; k < reported.size(); k++) {
+                    int bidder = reported.vertices[k];
+                    demands[bidder] = Math.min(demands[bidder], reported.values[k]);
+                }
+            }
+            ALTWorker.VertexValues eligible = eligibleDemands(demands, allocations);
+            EdgeShards.forRange(pool, 0, numWorkers, w -> proposals[w] = workers.get(w).propose(eligible));
+            exchangeCount++;
+            int[] matched = new int[16]; // bidder-item pairs of the merged maximal matching
+            int matchedCount = 0;
+            while (true) {
+                int acceptedFrom = matchedCount;
+                for (int[] workerProposals : proposals) {
+                    for (int k = 0; k < workerProposals.length; k += 2) {
+                        int bidder = workerProposals[k];
+                        int item = workerProposals[k + 1];
+                        if (taken[bidder] != round && taken[item] != round) {
+                            taken[bidder] = round;
+                            taken[item] = round;
+                            if (matchedCount == matched.length) {
+                                matched = Arrays.copyOf(matched, 2 * matchedCount);
+                            }
+                            matched[matchedCount++] = bidder;
+                            matched[matchedCount++] = item;
+                        }
+                    }
+                }
+                if (matchedCount == acceptedFrom) {
+                    break;
+                }
+                int[] accepted = Arrays.copyOfRange(matched, acceptedFrom, matchedCount);
+                EdgeShards.forRange(pool, 0, numWorkers, w -> proposals[w] = workers.get(w).accept(accepted));
+                exchangeCount++;
+            }
+            int[] changedItems = new int[matchedCount / 2];
+            double[] changedPrices = new double[matchedCount / 2];
+            for (int k = 0; k < matchedCount; k += 2) {
+                int bidder = matched[k];
+                int item = matched[k + 1];
+                int previousOwner = allocations[item];
+                if (previousOwner != UNALLOCATED) {
+                    allocations[previousOwner] = UNALLOCATED;
+                }
+                allocations[item] = bidder;
+                allocations[bidder] = item;
+                prices[item] = Math.min(prices[item] + eps, 1.0);
+                changedItems[k / 2] = item;
+                changedPrices[k / 2] = prices[item];
+            }
+            priceChanges = new ALTWorker.VertexValues(changedItems, changedPrices);
+            roundCount++;
+            if (matchedCount == 0) {
+                break;
+            }
+        }
+        IntMatching matching = new IntMatching(n);
+        for (int bidder = 0; bidder < n; bidder++) {
+            if (bipartition.isLeft(bidder) && allocations[bidder] != UNALLOCATED) {
+                matching.add(bidder, allocations[bidder]);
+            }
+        }
+        return matching;
+    }
+
+    // The demands of the unallocated bidders that can still buy an item, i.e. whose demand is below 1
+    private static ALTWorker.VertexValues eligibleDemands(double[] demands, int[] allocations) {
+        int count = 0;
+        for (int v = 0; v < demands.length; v++) {
+            if (demands[v] < 1 && allocations[v] == UNALLOCATED) {
+                count++;
+            }
+        }
+        int[] bidders = new int[count];
+        double[] values = new double[count];
+        count = 0;
+        for (int v = 0; v < demands.length; v++) {
+            if (demands[v] < 1 && allocations[v] == UNALLOCATED) {
+                bidders[count] = v;
+                values[count++] = demands[v];
+            }
+        }
+        return new ALTWorker.VertexValues(bidders, values);
+    }
+}
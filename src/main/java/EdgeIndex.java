@@ -0,0 +1,81 @@
+import java.util.Arrays;
+
+/* Maps undirected edges {u, v} to their position in an edge stream. Edges are keyed by the canonical packed long
+ * (min(u, v) << 32 | max(u, v)) in an open-addressing hash table with linear probing over primitive arrays, so that
+ * lookups neither box nor allocate. When the stream contains an edge more than once, the first position is kept. */
+public class EdgeIndex {
+    private static final long EMPTY = -1L; // keys of non-negative vertices are never negative
+    private final long[] keys;
+    private final int[] positions;
+    private final int mask;
+    private int size = 0;
+
+    private EdgeIndex(int expectedEdges) {
+        int capacity = Integer.highestOneBit(Math.max(2, expectedEdges) * 2 - 1) << 1; // load factor at most 1/2
+        this.keys = new long[capacity];
+        this.positions = new int[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(keys, EMPTY);
+    }
+
+    // Index every edge of the stream with a single pass
+    public static EdgeIndex build(EdgeStream stream) {
+        if (stream.size() > (1 << 29)) {
+            throw new IllegalArgumentException("Streams with more than 2^29 edges are too large for an in-memory edge index.");
+        }
+        EdgeIndex index = new EdgeIndex((int) stream.size());
+        EdgeStream.Cursor cursor = stream.pass();
+        while (cursor.next()) {
+            index.put(packEdge(cursor.source(), cursor.target()), (int) cursor.position());
+        }
+        return index;
+    }
+
+    // Pack the undirected edge {u, v} into a single long key, independent of the order of u and v
+    public static long packEdge(int u, int v) {
+        return ((long) Math.min(u, v) << 32) | Math.max(u, v);
+    }
+
+    // Number of distinct edges in the index
+    public int size() {
+        return size;
+    }
+
+    // Position of the edge {u, v} in the stream, or -1 if the stream does not contain it
+    public int position(int u, int v) {
+        long key = packEdge(u, v);
+        for (int slot = slot(key); keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return positions[slot];
+            }
+        }
+        return -1;
+    }
+
+    public boolean contains(int u, int v) {
+        return position(u, v) != -1;
+    }
+
+    private void put(long key, int position) {
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        positions[slot] = position;
+        size++;
+    }
+
+    // Spread the key bits with the MurmurHash3 finalizer before reducing them to a slot
+    private int slot(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        key *= 0xC4CEB9FE1A85EC53L;
+        key ^= key >>> 33;
+        return (int) key & mask;
+    }
+}
@@ -0,0 +1,72 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+// A split of an edge stream into contiguous shards of (almost) equal size that can be passed over in parallel.
+public class EdgeShards {
+    private final long[] bounds;
+
+    public EdgeShards(long size, int numShards) {
+        if (numShards < 1) {
+            throw new IllegalArgumentException("Number of shards must be positive.");
+        }
+        this.bounds = new long[numShards + 1];
+        for (int i = 0; i <= numShards; i++) {
+            bounds[i] = size * i / numShards;
+        }
+    }
+
+    public int count() {
+        return bounds.length - 1;
+    }
+
+    // First position of the shard (inclusive)
+    public long from(int shard) {
+        return bounds[shard];
+    }
+
+    // Last position of the shard (exclusive)
+    public long to(int shard) {
+        return bounds[shard + 1];
+    }
+
+    // Open a pass over one shard of the stream
+    public EdgeStream.Cursor pass(EdgeStream stream, int shard) {
+        return stream.pass(from(shard), to(shard));
+    }
+
+    // Run task once for every shard index on the pool and wait for all of them to finish
+    public void forEach(ForkJoinPool pool, IntConsumer task) {
+        forRange(pool, 0, count(), task);
+    }
+
+    // Run task once for every index in [from, to) on the pool and wait for all of them to finish
+    public static void forRange(ForkJoinPool pool, int from, int to, IntConsumer task) {
+        if (from < to) {
+            pool.invoke(new RangeAction(from, to, task));
+        }
+    }
+
+    private static class RangeAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int from;
+        private final int to;
+        private final IntConsumer task;
+
+        private RangeAction(int from, int to, IntConsumer task) {
+            this.from = from;
+            this.to = to;
+            this.task = task;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                task.accept(from);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeAction(from, mid, task), new RangeAction(mid, to, task));
+        }
+    }
+}
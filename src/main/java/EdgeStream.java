@@ -0,0 +1,30 @@
+/* A stream of undirected edges over the vertices 0, 1, ..., vertexCount() - 1. In the semi-streaming model an
+ * algorithm may only read the edges in sequential passes, so the stream is consumed through cursors, each of which
+ * performs (part of) one pass. Every pass sees the edges in the same order. */
+public interface EdgeStream {
+    // Number of edges in the stream
+    long size();
+
+    // Exclusive upper bound on the vertex identifiers that appear in the stream
+    int vertexCount();
+
+    // Open a pass over the edges at positions from (inclusive) to to (exclusive)
+    Cursor pass(long from, long to);
+
+    // Open a pass over the whole stream
+    default Cursor pass() {
+        return pass(0, size());
+    }
+
+    interface Cursor {
+        // Advance to the next edge of the pass, returning false once the pass is exhausted
+        boolean next();
+
+        int source();
+
+        int target();
+
+        // Position of the current edge in the stream
+        long position();
+    }
+}
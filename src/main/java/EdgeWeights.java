@@ -0,0 +1,52 @@
+import org.jgrapht.graph.DefaultEdge;
+
+import java.util.function.ToDoubleFunction;
+
+/* Weights of the edges of an edge stream, kept in a primitive array parallel to the stream: the weight of the edge at
+ * position p of every pass is weight(p). Weighted algorithms read it through the position of their cursor, so the
+ * streams themselves stay unweighted and a weight costs 8 bytes per edge whatever the stream's representation. */
+public class EdgeWeights {
+    private final EdgeStream stream;
+    private final double[] weights;
+    private final double maxWeight;
+
+    // Weights of the edges of stream, weights[p] being the weight of the edge at position p; all must be positive
+    public EdgeWeights(EdgeStream stream, double[] weights) {
+        if (weights.length != stream.size()) {
+            throw new IllegalArgumentException("Expected " + stream.size() + " edge weights, got " + weights.length + ".");
+        }
+        double max = 0;
+        for (int p = 0; p < weights.length; p++) {
+            if (!(weights[p] > 0) || Double.isInfinite(weights[p])) {
+                throw new IllegalArgumentException("Edge " + p + " has weight " + weights[p] + "; weights must be positive and finite.");
+            }
+            max = Math.max(max, weights[p]);
+        }
+        this.stream = stream;
+        this.weights = weights;
+        this.maxWeight = max;
+    }
+
+    // Weights of the DefaultEdges of stream, as given by weight (e.g. graph::getEdgeWeight)
+    public static EdgeWeights of(DefaultEdgeStream stream, ToDoubleFunction<DefaultEdge> weight) {
+        double[] weights = new double[(int) stream.size()];
+        for (int p = 0; p < weights.length; p++) {
+            weights[p] = weight.applyAsDouble(stream.edgeAt(p));
+        }
+        return new EdgeWeights(stream, weights);
+    }
+
+    public EdgeStream stream() {
+        return stream;
+    }
+
+    // Weight of the edge at the given position of the stream
+    public double weight(long position) {
+        return weights[(int) position];
+    }
+
+    // Largest weight of an edge of the stream, 0 if the stream is empty
+    public double maxWeight() {
+        return maxWeight;
+    }
+}
@@ -2,6 +2,7 @@ import org.javatuples.Pair;
 import org.jgrapht.Graph;
 import org.jgrapht.generate.CompleteBipartiteGraphGenerator;
 import org.jgrapht.generate.GnpRandomBipartiteGraphGenerator;
+import org.jgrapht.generate.GnpRandomGraphGenerator;
 import org.jgrapht.graph.DefaultEdge;
 import org.jgrapht.graph.DefaultUndirectedGraph;
 import org.jgrapht.graph.SimpleGraph;
@@ -10,6 +11,7 @@ import org.jgrapht.util.SupplierUtil;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -49,6 +51,14 @@ public class GraphUtils {
         return Pair.with(gnpBipartiteGraph, gnpRandomBipartiteGraphGenerator);
     }
 
+    // A G(n, p) random graph over the vertices 0, 1, ..., n - 1
+    public static Graph<Integer, DefaultEdge> generateRandomGraph(int n, double p, long seed) {
+        Graph<Integer, DefaultEdge> gnpRandomGraph =
+                new SimpleGraph<>(SupplierUtil.createIntegerSupplier(), SupplierUtil.createDefaultEdgeSupplier(), false);
+        new GnpRandomGraphGenerator<Integer, DefaultEdge>(n, p, seed).generateGraph(gnpRandomGraph);
+        return gnpRandomGraph;
+    }
+
     public static Pair<Graph<Integer, DefaultEdge>, CompleteBipartiteGraphGenerator<Integer, DefaultEdge>> generateCompleteBipartiteGraph(Set<Integer> firstPartition, Set<Integer> secondPartition) {
         Graph<Integer, DefaultEdge> completeBipartiteGraph =
                 new SimpleGraph<>(DefaultEdge.class);
@@ -65,18 +75,27 @@ public class GraphUtils {
     }
 
     // Find a maximal matching (1/2-approximation to the MCM) using the standard greedy algorithm
-    public static Set<DefaultEdge> findMaximalMatching(List<DefaultEdge> stream, Graph<Integer, DefaultEdge> g) {
-        Set<DefaultEdge> matching = new HashSet<>();
-        Set<Integer> verticesCoveredByMatching = new HashSet<>();
-        for (DefaultEdge edge : stream) {
-            int s = g.getEdgeSource(edge);
-            int t = g.getEdgeTarget(edge);
-            if (!verticesCoveredByMatching.contains(s) && !verticesCoveredByMatching.contains(t)) {
-                matching.add(edge);
-                verticesCoveredByMatching.add(s);
-                verticesCoveredByMatching.add(t);
+    public static Set<DefaultEdge> findMaximalMatching(List<DefaultEdge> stream) {
+        DefaultEdgeStream edgeStream = new DefaultEdgeStream(stream);
+        return edgeStream.toEdgeSet(findMaximalMatching(edgeStream));
+    }
+
+    // Find a maximal matching of an edge stream in a single pass using the standard greedy algorithm
+    public static IntMatching findMaximalMatching(EdgeStream stream) {
+        IntMatching matching = new IntMatching(stream.vertexCount());
+        EdgeStream.Cursor cursor = stream.pass();
+        while (cursor.next()) {
+            int s = cursor.source();
+            int t = cursor.target();
+            if (s != t && !matching.isMatched(s) && !matching.isMatched(t)) {
+                matching.add(s, t);
             }
         }
         return matching;
     }
+
+    // Find a maximal matching of an edge stream in a single parallel pass over numShards shards of the stream
+    public static IntMatching findMaximalMatching(EdgeStream stream, ForkJoinPool pool, int numShards) {
+        return ParallelMaximalMatching.find(stream, pool, numShards);
+    }
 }
@@ -0,0 +1,25 @@
+import org.jgrapht.graph.DefaultEdge;
+
+import java.util.Set;
+
+// The one-pass greedy maximal matching as a StreamingMatcher: a 1/2-approximation whatever eps is requested
+public class GreedyMatcher implements StreamingMatcher {
+    private final EdgeStream stream;
+
+    public GreedyMatcher(EdgeStream stream) {
+        this.stream = stream;
+    }
+
+    @Override
+    public IntMatching findApproximateIntMatching(double eps) {
+        return GraphUtils.findMaximalMatching(stream);
+    }
+
+    @Override
+    public Set<DefaultEdge> findApproximateMaxMatching(double eps) {
+        if (!(stream instanceof DefaultEdgeStream)) {
+            throw new IllegalStateException("findApproximateMaxMatching requires a DefaultEdgeStream; use findApproximateIntMatching instead.");
+        }
+        return ((DefaultEdgeStream) stream).toEdgeSet(findApproximateIntMatching(eps));
+    }
+}
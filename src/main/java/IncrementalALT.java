@@ -0,0 +1,188 @@
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+
+/* Incremental variant of the ALT auction for a bipartite graph that changes between runs. The prices and allocations
+ * of the auction are kept between calls to update, which applies a delta of inserted and deleted edges and resumes
+ * the auction from the previous state instead of restarting it from zero prices:
+ *
+ * - a deleted edge that is allocated frees its bidder and item, whose price is kept (prices never decrease);
+ * - allocated bidders keep their items, even when an inserted edge offers a cheaper one; letting them bid again
+ *   would outbid other bidders and shrink the allocation for several rounds without making it larger in the end;
+ * - rounds then run as in ALT, at most ceil(2/eps^2) of them by default, and stop early once a round changes no
+ *   allocation (the state is then a fixed point of the auction until the next delta).
+ *
+ * The rounds are ALT's own: every update builds an ALT over the current graph and resumes an ALT.Auction from the
+ * prices and allocation of the previous one, so the listener, budget, vertex store and parallel passes of ALT all
+ * apply to the rounds of an update.
+ *
+ * The allocation therefore never shrinks on an update that only inserts edges. Since only the bidders that are
+ * unallocated after the delta bid again, a few rounds per update usually get most of the gain of a full rerun. Edges
+ * are given oriented, from bidder to item, and the side of each vertex is fixed by the first edge it appears in. The
+ * current graph is kept in memory, since every round makes a pass over it. */
+public class IncrementalALT {
+    private final double eps;
+    private final int maxRounds;
+    private final VertexStore store;
+    private int[] bidderEnds = new int[16];
+    private int[] itemEnds = new int[16];
+    private int edgeCount = 0;
+    private int vertexCount = 0;
+    private byte[] sides = new byte[0];
+    private ALT.Auction auction; // auction over the graph as of the last update, null before the first one
+    private ForkJoinPool pool; // null when the passes run sequentially
+    private int numShards;
+    private MatchingListener listener = MatchingListener.NONE;
+    private int lastRoundCount = 0;
+
+    public IncrementalALT(double eps) {
+        this(eps, VertexStore.HEAP);
+    }
+
+    // Same as IncrementalALT(eps), with the auction state of every update allocated in the given store
+    public IncrementalALT(double eps, VertexStore store) {
+        if (eps <= 0 || eps >= 1) {
+            throw new IllegalArgumentException("Argument to IncrementalALT must be a real number strictly between 0 and 1");
+        }
+        this.eps = eps;
+        this.maxRounds = (int) Math.ceil(2 / (eps * eps));
+        this.store = Objects.requireNonNull(store);
+    }
+
+    // Compute the demands of the rounds of every subsequent update in parallel, as ALT.setParallelism does
+    public void setParallelism(ForkJoinPool pool, int numShards) {
+        if (store.isOffHeap()) {
+            throw new IllegalStateException("The passes of an off-heap auction run sequentially.");
+        }
+        if (numShards < 1) {
+            throw new IllegalArgumentException("Number of shards must be positive.");
+        }
+        this.pool = pool;
+        this.numShards = numShards;
+    }
+
+    // Report the passes and rounds of every subsequent update to listener, as one ALT run per update
+    public void setListener(MatchingListener listener) {
+        this.listener = Objects.requireNonNull(listener);
+    }
+
+    // Insert the edges of inserted, each oriented from bidder to item, and resume the auction
+    public IntMatching update(EdgeStream inserted) {
+        return update(inserted, new ArrayEdgeStream(new int[0], new int[0], 0));
+    }
+
+    public IntMatching update(EdgeStream inserted, EdgeStream deleted) {
+        return update(inserted, deleted, maxRounds);
+    }
+
+    public IntMatching update(EdgeStream inserted, EdgeStream deleted, int maxRounds) {
+        return update(inserted, deleted, maxRounds, PassBudget.unlimited());
+    }
+
+    /* Delete every copy of the edges of deleted from the graph, insert the edges of inserted (oriented from bidder to
+     * item) and resume the auction for at most maxRounds rounds, or fewer if the budget runs out first. Returns the
+     * allocation as a matching over the vertices seen so far. */
+    public IntMatching update(EdgeStream inserted, EdgeStream deleted, int maxRounds, PassBudget budget) {
+        if (maxRounds < 1) {
+            throw new IllegalArgumentException("An update must run at least one round.");
+        }
+        int n = Math.max(vertexCount, Math.max(inserted.vertexCount(), deleted.vertexCount()));
+        sides = assignSides(inserted, n);
+        vertexCount = n;
+        if (deleted.size() > 0) {
+            deleteEdges(EdgeIndex.build(deleted));
+        }
+        EdgeStream.Cursor cursor = inserted.pass();
+        while (cursor.next()) {
+            appendEdge(cursor.source(), cursor.target());
+        }
+        ALT alt = new ALT(graph(), bipartition(), store);
+        if (pool != null) {
+            alt.setParallelism(pool, numShards);
+        }
+        alt.setListener(listener);
+        ALT.Auction resumed = alt.newAuction();
+        if (auction != null) {
+            resumed.resume(auction);
+        }
+        IntMatching matching = alt.run(resumed, eps, maxRounds, budget);
+        auction = resumed;
+        lastRoundCount = alt.getRoundCount();
+        return matching;
+    }
+
+    // Number of rounds run by the last update
+    public int getRoundCount() {
+        return lastRoundCount;
+    }
+
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    public int vertexCount() {
+        return vertexCount;
+    }
+
+    // The current graph, each edge oriented from bidder to item
+    public ArrayEdgeStream graph() {
+        return new ArrayEdgeStream(Arrays.copyOf(bidderEnds, edgeCount), Arrays.copyOf(itemEnds, edgeCount), vertexCount);
+    }
+
+    // Fix the side of the endpoints of every inserted edge, checking that no vertex would end up on both sides
+    private byte[] assignSides(EdgeStream inserted, int n) {
+        byte[] newSides = Arrays.copyOf(sides, n); // sides is left untouched if the delta is rejected
+        Arrays.fill(newSides, sides.length, n, (byte) Bipartition.NONE);
+        EdgeStream.Cursor cursor = inserted.pass();
+        while (cursor.next()) {
+            int bidder = cursor.source();
+            int item = cursor.target();
+            if (newSides[bidder] == Bipartition.RIGHT || newSides[item] == Bipartition.LEFT || bidder == item) {
+                throw new IllegalArgumentException("Edge {" + bidder + ", " + item + "} does not join a bidder to an item.");
+            }
+            newSides[bidder] = Bipartition.LEFT;
+            newSides[item] = Bipartition.RIGHT;
+        }
+        return newSides;
+    }
+
+    private Bipartition bipartition() {
+        BitSet left = new BitSet(vertexCount);
+        BitSet right = new BitSet(vertexCount);
+        for (int v = 0; v < vertexCount; v++) {
+            left.set(v, sides[v] == Bipartition.LEFT);
+            right.set(v, sides[v] == Bipartition.RIGHT);
+        }
+        return Bipartition.of(vertexCount, left, right);
+    }
+
+    // Remove the edges in the index from the graph, freeing the bidders and items allocated along them
+    private void deleteEdges(EdgeIndex deleted) {
+        int kept = 0;
+        for (int e = 0; e < edgeCount; e++) {
+            int bidder = bidderEnds[e];
+            int item = itemEnds[e];
+            if (deleted.contains(bidder, item)) {
+                if (auction != null && auction.allocation(bidder) == item) {
+                    auction.release(bidder);
+                }
+                continue;
+            }
+            bidderEnds[kept] = bidder;
+            itemEnds[kept] = item;
+            kept++;
+        }
+        edgeCount = kept;
+    }
+
+    private void appendEdge(int bidder, int item) {
+        if (edgeCount == bidderEnds.length) {
+            bidderEnds = Arrays.copyOf(bidderEnds, 2 * edgeCount);
+            itemEnds = Arrays.copyOf(itemEnds, 2 * edgeCount);
+        }
+        bidderEnds[edgeCount] = bidder;
+        itemEnds[edgeCount] = item;
+        edgeCount++;
+    }
+}
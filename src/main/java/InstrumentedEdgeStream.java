@@ -0,0 +1,76 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+/* Decorator reporting every completed pass over an edge stream to a MatchingListener, with the number of edges the
+ * pass scanned and its latency from the opening of the cursor to its exhaustion. Cursors abandoned before the end of
+ * their pass are not reported. */
+class InstrumentedEdgeStream implements EdgeStream {
+    private final EdgeStream stream;
+    private final MatchingListener listener;
+    private final String algorithm;
+    private final AtomicLong passes = new AtomicLong();
+
+    InstrumentedEdgeStream(EdgeStream stream, MatchingListener listener, String algorithm) {
+        this.stream = stream;
+        this.listener = listener;
+        this.algorithm = algorithm;
+    }
+
+    @Override
+    public long size() {
+        return stream.size();
+    }
+
+    @Override
+    public int vertexCount() {
+        return stream.vertexCount();
+    }
+
+    // Report a pass that was made over the underlying stream without a cursor of this decorator, e.g. sharded
+    void reportPass(long edgesScanned, long nanos) {
+        listener.onPass(algorithm, passes.incrementAndGet(), edgesScanned, nanos);
+    }
+
+    @Override
+    public Cursor pass(long from, long to) {
+        return new InstrumentedCursor(stream.pass(from, to));
+    }
+
+    private class InstrumentedCursor implements Cursor {
+        private final Cursor cursor;
+        private final long startNanos = System.nanoTime();
+        private long scanned = 0;
+        private boolean reported = false;
+
+        private InstrumentedCursor(Cursor cursor) {
+            this.cursor = cursor;
+        }
+
+        @Override
+        public boolean next() {
+            if (cursor.next()) {
+                scanned++;
+                return true;
+            }
+            if (!reported) {
+                reported = true;
+                reportPass(scanned, System.nanoTime() - startNanos);
+            }
+            return false;
+        }
+
+        @Override
+        public int source() {
+            return cursor.source();
+        }
+
+        @Override
+        public int target() {
+            return cursor.target();
+        }
+
+        @Override
+        public long position() {
+            return cursor.position();
+        }
+    }
+}
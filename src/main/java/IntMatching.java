@@ -0,0 +1,78 @@
+import java.util.Arrays;
+
+// A matching over the vertices 0, 1, ..., vertexCount - 1 stored as a mate array (mate[v] == -1 iff v is free).
+public class IntMatching {
+    private final int[] mate;
+    private int size;
+
+    public IntMatching(int vertexCount) {
+        this.mate = new int[vertexCount];
+        Arrays.fill(this.mate, -1);
+        this.size = 0;
+    }
+
+    private IntMatching(int[] mate, int size) {
+        this.mate = mate;
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int vertexCount() {
+        return mate.length;
+    }
+
+    public int mate(int v) {
+        return mate[v];
+    }
+
+    public boolean isMatched(int v) {
+        return mate[v] != -1;
+    }
+
+    public boolean contains(int u, int v) {
+        return mate[u] == v;
+    }
+
+    // Add the edge {u, v}; both endpoints must currently be free
+    public void add(int u, int v) {
+        if (u == v || mate[u] != -1 || mate[v] != -1) {
+            throw new IllegalArgumentException("Cannot add edge {" + u + ", " + v + "} to the matching.");
+        }
+        mate[u] = v;
+        mate[v] = u;
+        size++;
+    }
+
+    // Remove the matched edge incident to u, if any
+    public void remove(int u) {
+        int v = mate[u];
+        if (v == -1) {
+            return;
+        }
+        mate[u] = -1;
+        mate[v] = -1;
+        size--;
+    }
+
+    public IntMatching copy() {
+        return new IntMatching(mate.clone(), size);
+    }
+
+    // Remove every edge, keeping the mate array
+    public void clear() {
+        Arrays.fill(mate, -1);
+        size = 0;
+    }
+
+    // Overwrite this matching with other, which must be over the same vertices, without allocating
+    public void copyFrom(IntMatching other) {
+        if (other.mate.length != mate.length) {
+            throw new IllegalArgumentException("Cannot copy a matching of " + other.mate.length + " vertices into one of " + mate.length + ".");
+        }
+        System.arraycopy(other.mate, 0, mate, 0, mate.length);
+        size = other.size;
+    }
+}
@@ -0,0 +1,122 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/* MatchingListener that exports the metrics of a run as Java Flight Recorder events, so that they can be recorded in
+ * production alongside the JVM's own events (e.g. with -XX:StartFlightRecording) and consumed with JDK Mission Control
+ * or a jdk.jfr.consumer.RecordingStream. When no recording enables the events, each callback only checks a flag. */
+public class JfrMatchingListener implements MatchingListener {
+    @Override
+    public void onPass(String algorithm, long pass, long edgesScanned, long nanos) {
+        PassEvent event = new PassEvent();
+        if (event.isEnabled()) {
+            event.algorithm = algorithm;
+            event.pass = pass;
+            event.edgesScanned = edgesScanned;
+            event.passNanos = nanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void onRound(String algorithm, long round, int matchingSize) {
+        RoundEvent event = new RoundEvent();
+        if (event.isEnabled()) {
+            event.algorithm = algorithm;
+            event.round = round;
+            event.matchingSize = matchingSize;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void onLayerGraph(String algorithm, long phase, int layerGraph, int augmentingPaths, int recursionDepth) {
+        LayerGraphEvent event = new LayerGraphEvent();
+        if (event.isEnabled()) {
+            event.algorithm = algorithm;
+            event.phase = phase;
+            event.layerGraph = layerGraph;
+            event.augmentingPaths = augmentingPaths;
+            event.recursionDepth = recursionDepth;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void onRunEnd(String algorithm, int matchingSize, long passes, long vertexStateBytes) {
+        RunEvent event = new RunEvent();
+        if (event.isEnabled()) {
+            event.algorithm = algorithm;
+            event.matchingSize = matchingSize;
+            event.passes = passes;
+            event.vertexStateBytes = vertexStateBytes;
+            event.commit();
+        }
+    }
+
+    @Name("matching.Pass")
+    @Label("Stream Pass")
+    @Category("Semi-Streaming Matching")
+    @Description("A completed pass over the edge stream")
+    static class PassEvent extends Event {
+        @Label("Algorithm")
+        String algorithm;
+        @Label("Pass")
+        long pass;
+        @Label("Edges Scanned")
+        long edgesScanned;
+        @Label("Pass Duration")
+        @Timespan(Timespan.NANOSECONDS)
+        long passNanos;
+    }
+
+    @Name("matching.Round")
+    @Label("Round")
+    @Category("Semi-Streaming Matching")
+    @Description("A completed ALT round or McGregor phase")
+    static class RoundEvent extends Event {
+        @Label("Algorithm")
+        String algorithm;
+        @Label("Round")
+        long round;
+        @Label("Matching Size")
+        int matchingSize;
+    }
+
+    @Name("matching.LayerGraph")
+    @Label("Layer Graph")
+    @Category("Semi-Streaming Matching")
+    @Description("The augmenting paths found in one layer graph of a McGregor phase")
+    static class LayerGraphEvent extends Event {
+        @Label("Algorithm")
+        String algorithm;
+        @Label("Phase")
+        long phase;
+        @Label("Layer Graph")
+        int layerGraph;
+        @Label("Augmenting Paths")
+        int augmentingPaths;
+        @Label("Find-Layer-Paths Recursion Depth")
+        int recursionDepth;
+    }
+
+    @Name("matching.Run")
+    @Label("Matching Run")
+    @Category("Semi-Streaming Matching")
+    @Description("A completed run of a streaming matcher")
+    static class RunEvent extends Event {
+        @Label("Algorithm")
+        String algorithm;
+        @Label("Matching Size")
+        int matchingSize;
+        @Label("Passes")
+        long passes;
+        @Label("Peak Vertex State")
+        @DataAmount(DataAmount.BYTES)
+        long vertexStateBytes;
+    }
+}
@@ -0,0 +1,226 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/* An edge stream read directly from a binary edge file through memory-mapped segments, so that the edges never have
+ * to fit on the heap and every pass re-scans the page cache without copying.
+ *
+ * File format (little-endian):
+ *   int  magic        MAGIC
+ *   int  version      VERSION
+ *   int  vertexCount
+ *   int  reserved     0
+ *   long edgeCount
+ *   edgeCount pairs of (int source, int target)
+ *
+ * The header is checked against the length of the file when it is opened, and every endpoint against vertexCount when
+ * it is read, so a corrupt file fails with an IOException (wrapped in an UncheckedIOException during a pass) instead
+ * of an index error inside the algorithm reading it. */
+public class MappedEdgeStream implements EdgeStream {
+    public static final int MAGIC = 0x45444745; // "EDGE"
+    public static final int VERSION = 1;
+    static final int HEADER_BYTES = 24;
+    static final int EDGE_BYTES = 8;
+    private static final int DEFAULT_EDGES_PER_SEGMENT = 1 << 27; // 1 GiB per mapped segment
+
+    private final Path path;
+    private final int vertexCount;
+    private final long size;
+    private final int edgesPerSegment;
+    private final MappedByteBuffer[] segments;
+
+    private MappedEdgeStream(Path path, int edgesPerSegment) throws IOException {
+        this.path = path;
+        this.edgesPerSegment = edgesPerSegment;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // keep reading until the header is complete or the file ends
+            }
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC) {
+                throw new IOException(path + " is not a binary edge file.");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported edge file version " + version + " in " + path);
+            }
+            this.vertexCount = header.getInt();
+            header.getInt();
+            this.size = header.getLong();
+            if (vertexCount < 0 || size < 0 || size > (Long.MAX_VALUE - HEADER_BYTES) / EDGE_BYTES) {
+                throw new IOException(path + " has a corrupt header.");
+            }
+            if (channel.size() < HEADER_BYTES + size * EDGE_BYTES) {
+                throw new IOException(path + " is truncated: expected " + size + " edges.");
+            }
+            int numSegments = (int) ((size + edgesPerSegment - 1) / edgesPerSegment);
+            this.segments = new MappedByteBuffer[numSegments];
+            for (int i = 0; i < numSegments; i++) {
+                long firstEdge = (long) i * edgesPerSegment;
+                long edgesInSegment = Math.min(edgesPerSegment, size - firstEdge);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + firstEdge * EDGE_BYTES,
+                        edgesInSegment * EDGE_BYTES);
+                segments[i].order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+    }
+
+    public static MappedEdgeStream open(Path path) throws IOException {
+        return new MappedEdgeStream(path, DEFAULT_EDGES_PER_SEGMENT);
+    }
+
+    // Open with a custom segment size, mostly so that tests can exercise passes spanning several segments
+    static MappedEdgeStream open(Path path, int edgesPerSegment) throws IOException {
+        if (edgesPerSegment <= 0 || edgesPerSegment > DEFAULT_EDGES_PER_SEGMENT) {
+            throw new IllegalArgumentException("Segment size must be between 1 and " + DEFAULT_EDGES_PER_SEGMENT + " edges.");
+        }
+        return new MappedEdgeStream(path, edgesPerSegment);
+    }
+
+    // Write every edge of the stream to a binary edge file at path
+    public static void write(EdgeStream stream, Path path) throws IOException {
+        try (Writer writer = new Writer(path, stream.vertexCount())) {
+            EdgeStream.Cursor cursor = stream.pass();
+            while (cursor.next()) {
+                writer.addEdge(cursor.source(), cursor.target());
+            }
+        }
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public int vertexCount() {
+        return vertexCount;
+    }
+
+    @Override
+    public Cursor pass(long from, long to) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("Invalid pass range [" + from + ", " + to + ") for a stream of size " + size);
+        }
+        return new MappedCursor(from, to);
+    }
+
+    private class MappedCursor implements Cursor {
+        private final long end;
+        private long position;
+        private ByteBuffer segment;
+        private int offset; // byte offset of the current edge within segment
+        private int source;
+        private int target;
+
+        private MappedCursor(long from, long to) {
+            this.position = from - 1;
+            this.end = to;
+            this.offset = -EDGE_BYTES;
+            if (from < to) {
+                this.segment = segments[(int) (from / edgesPerSegment)];
+                this.offset = (int) (from % edgesPerSegment) * EDGE_BYTES - EDGE_BYTES;
+            }
+        }
+
+        @Override
+        public boolean next() {
+            if (position + 1 >= end) {
+                position = end;
+                return false;
+            }
+            position++;
+            offset += EDGE_BYTES;
+            if (offset >= segment.limit()) {
+                segment = segments[(int) (position / edgesPerSegment)];
+                offset = 0;
+            }
+            source = segment.getInt(offset);
+            target = segment.getInt(offset + 4);
+            if (source < 0 || source >= vertexCount || target < 0 || target >= vertexCount) {
+                throw new UncheckedIOException(new IOException(path + " is corrupt: edge " + position
+                        + " has an endpoint outside [0, " + vertexCount + ")."));
+            }
+            return true;
+        }
+
+        @Override
+        public int source() {
+            return source;
+        }
+
+        @Override
+        public int target() {
+            return target;
+        }
+
+        @Override
+        public long position() {
+            return position;
+        }
+    }
+
+    // Appends edges to a new binary edge file through a small direct buffer; the header is finalised on close
+    public static class Writer implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        private final int vertexCount;
+        private long size = 0;
+
+        public Writer(Path path, int vertexCount) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.vertexCount = vertexCount;
+            channel.position(HEADER_BYTES);
+        }
+
+        public void addEdge(int source, int target) {
+            if (source < 0 || source >= vertexCount || target < 0 || target >= vertexCount) {
+                throw new IllegalArgumentException("Edge {" + source + ", " + target + "} has an endpoint outside [0, " + vertexCount + ").");
+            }
+            if (buffer.remaining() < EDGE_BYTES) {
+                flush();
+            }
+            buffer.putInt(source).putInt(target);
+            size++;
+        }
+
+        private void flush() {
+            buffer.flip();
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(VERSION).putInt(vertexCount).putInt(0).putLong(size);
+                header.flip();
+                long position = 0;
+                while (header.hasRemaining()) {
+                    position += channel.write(header, position);
+                }
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
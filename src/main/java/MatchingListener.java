@@ -0,0 +1,35 @@
+/* Receives pass-level metrics from a run of one of the streaming matchers: every completed pass over the stream with
+ * the number of edges it scanned and its latency, the size of the matching after every ALT round or McGregor phase,
+ * the augmenting paths and Find-Layer-Paths recursion depth of every McGregor layer graph, and the peak memory held
+ * in vertex-indexed state. All methods have empty defaults, so a listener only overrides what it records.
+ *
+ * Callbacks are made once per pass, round or layer graph, never per edge, so a listener that does constant work per
+ * call costs nothing measurable. They may be made from the worker threads of a run (e.g. by McGregor's shared scan),
+ * so implementations must be thread-safe. */
+public interface MatchingListener {
+    // Listener that ignores every callback; the default of the matchers
+    MatchingListener NONE = new MatchingListener() {
+    };
+
+    // A run over a stream of edgeCount edges on vertexCount vertices has started
+    default void onRunStart(String algorithm, int vertexCount, long edgeCount) {
+    }
+
+    // Pass number pass (counted from 1 within the run) scanned edgesScanned edges in nanos nanoseconds
+    default void onPass(String algorithm, long pass, long edgesScanned, long nanos) {
+    }
+
+    // Round (ALT) or phase (McGregor) number round, counted from 1, ended with a matching of matchingSize edges
+    default void onRound(String algorithm, long round, int matchingSize) {
+    }
+
+    /* Layer graph i of McGregor's phase j yielded augmentingPaths vertex-disjoint augmenting paths, and its
+     * Find-Layer-Paths stack reached a depth of recursionDepth frames (one per layer descended, at most i + 1) */
+    default void onLayerGraph(String algorithm, long phase, int layerGraph, int augmentingPaths, int recursionDepth) {
+    }
+
+    // The run returned a matching of matchingSize edges after passes passes, with at most vertexStateBytes bytes of
+    // vertex-indexed state allocated at any time
+    default void onRunEnd(String algorithm, int matchingSize, long passes, long vertexStateBytes) {
+    }
+}
@@ -0,0 +1,86 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/* MatchingListener that aggregates the metrics of the runs it observes in memory: totals and maxima of the passes,
+ * the matching size after every round or phase, and the deepest Find-Layer-Paths recursion. Cheap enough to leave
+ * attached; call reset() between runs to keep only the metrics of the next one. */
+public class MatchingMetrics implements MatchingListener {
+    private long passes = 0;
+    private long edgesScanned = 0;
+    private long totalPassNanos = 0;
+    private long maxPassNanos = 0;
+    private long peakVertexStateBytes = 0;
+    private int maxRecursionDepth = 0;
+    private long augmentingPaths = 0;
+    private final List<Integer> roundMatchingSizes = new ArrayList<>();
+
+    @Override
+    public synchronized void onPass(String algorithm, long pass, long edgesScanned, long nanos) {
+        this.passes++;
+        this.edgesScanned += edgesScanned;
+        this.totalPassNanos += nanos;
+        this.maxPassNanos = Math.max(maxPassNanos, nanos);
+    }
+
+    @Override
+    public synchronized void onRound(String algorithm, long round, int matchingSize) {
+        roundMatchingSizes.add(matchingSize);
+    }
+
+    @Override
+    public synchronized void onLayerGraph(String algorithm, long phase, int layerGraph, int augmentingPaths, int recursionDepth) {
+        this.augmentingPaths += augmentingPaths;
+        this.maxRecursionDepth = Math.max(maxRecursionDepth, recursionDepth);
+    }
+
+    @Override
+    public synchronized void onRunEnd(String algorithm, int matchingSize, long passes, long vertexStateBytes) {
+        this.peakVertexStateBytes = Math.max(peakVertexStateBytes, vertexStateBytes);
+    }
+
+    public synchronized void reset() {
+        passes = 0;
+        edgesScanned = 0;
+        totalPassNanos = 0;
+        maxPassNanos = 0;
+        peakVertexStateBytes = 0;
+        maxRecursionDepth = 0;
+        augmentingPaths = 0;
+        roundMatchingSizes.clear();
+    }
+
+    // Number of passes over the stream; the shards of a parallel pass count as a single pass
+    public synchronized long getPasses() {
+        return passes;
+    }
+
+    public synchronized long getEdgesScanned() {
+        return edgesScanned;
+    }
+
+    public synchronized long getTotalPassNanos() {
+        return totalPassNanos;
+    }
+
+    public synchronized long getMaxPassNanos() {
+        return maxPassNanos;
+    }
+
+    public synchronized long getPeakVertexStateBytes() {
+        return peakVertexStateBytes;
+    }
+
+    public synchronized int getMaxRecursionDepth() {
+        return maxRecursionDepth;
+    }
+
+    // Total number of augmenting paths found by all layer graphs, including those of candidates that were not applied
+    public synchronized long getAugmentingPaths() {
+        return augmentingPaths;
+    }
+
+    // Size of the matching after each round or phase, in order
+    public synchronized List<Integer> getRoundMatchingSizes() {
+        return new ArrayList<>(roundMatchingSizes);
+    }
+}
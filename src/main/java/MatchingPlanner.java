@@ -0,0 +1,157 @@
+/* Picks a streaming matcher for a (1 - eps)-approximate maximum matching of a stream within a PassBudget, and reports
+ * its plan, the number of passes it is expected to make and whether its result is guaranteed:
+ *
+ * - for eps >= 1/2, the one-pass greedy maximal matching, which is a 1/2-approximation;
+ * - otherwise the stream is checked for bipartiteness with one pass (Bipartition.detect), and ALT runs on bipartite
+ *   streams with the detected bipartition, so it does not detect it again;
+ * - on other streams McGregor runs with eps' = eps / (1 - eps), the largest eps for which its 1/(1 + eps')
+ *   guarantee is still at least 1 - eps. Its layered engine has that guarantee and is picked whenever its expected
+ *   passes fit the budget (always, with the unlimited budget, however many passes that takes). Otherwise the engine
+ *   expected to make fewer passes is picked, in practice the bipartite reduction, whose guarantee is only heuristic:
+ *   it has no worst-case bound, and its plan says so.
+ *
+ * Expected pass counts are the worst cases prescribed by the algorithms (plus the detection pass), except for
+ * McGregor's layered engine, whose Find-Layer-Paths pass count depends on the graph: for it the estimate counts one
+ * descent through every layer of every layer graph. Runs may make fewer passes, since ALT and the bipartite reduction
+ * stop on convergence. The planned matcher runs under the budget, and a plan is guaranteed only when its matcher has
+ * a worst-case guarantee and its expected passes fit the budget: a run cut short by the budget returns the best
+ * matching found so far, which may fall short of 1 - eps. */
+public class MatchingPlanner {
+    public enum Algorithm {
+        GREEDY,
+        ALT,
+        MCGREGOR_LAYERED,
+        MCGREGOR_BIPARTITE_REDUCTION
+    }
+
+    // Plan a (1 - eps)-approximation of the maximum matching of stream, with a worst-case guarantee
+    public static Plan plan(EdgeStream stream, double eps) {
+        return plan(stream, eps, PassBudget.unlimited());
+    }
+
+    public static Plan plan(EdgeStream stream, double eps, PassBudget budget) {
+        if (eps <= 0 || eps >= 1) {
+            throw new IllegalArgumentException("Argument to plan must be a real number strictly between 0 and 1");
+        }
+        if (eps >= 0.5) {
+            return new Plan(stream, Algorithm.GREEDY, eps, 1, true, null, budget);
+        }
+        Bipartition bipartition = Bipartition.detect(stream);
+        if (bipartition != null) {
+            return new Plan(stream, Algorithm.ALT, eps, 1 + altPasses(eps), true, bipartition, budget);
+        }
+        double mcGregorEps = eps / (1 - eps);
+        Plan layered = new Plan(stream, Algorithm.MCGREGOR_LAYERED, mcGregorEps,
+                saturatingAdd(2, layeredPasses(mcGregorEps)), true, null, budget);
+        Plan reduction = new Plan(stream, Algorithm.MCGREGOR_BIPARTITE_REDUCTION, mcGregorEps,
+                saturatingAdd(2, reductionPasses(mcGregorEps)), false, null, budget);
+        if (layered.isWithinBudget()) {
+            return layered;
+        }
+        return (reduction.expectedPasses < layered.expectedPasses) ? reduction : layered;
+    }
+
+    // Passes of an ALT run: two per round, ceil(2/eps^2) rounds
+    static long altPasses(double eps) {
+        return 2 * (long) Math.ceil(2 / (eps * eps));
+    }
+
+    // Passes of the layered engine after its initial maximal matching: r phases of k layer graphs, each descending
+    // once through its i + 1 layers
+    static long layeredPasses(double eps) {
+        int k = (int) Math.ceil(1.0 / eps + 1);
+        long perPhase = (long) k * (k + 3) / 2;
+        long r = McGregor.phaseCount(k);
+        return (r > Long.MAX_VALUE / perPhase) ? Long.MAX_VALUE : r * perPhase;
+    }
+
+    // Passes of the bipartite reduction after its initial maximal matching: one ALT run per trial
+    static long reductionPasses(double eps) {
+        long trials = BipartiteReduction.trialCount((int) Math.ceil(1 / eps));
+        long perTrial = altPasses(eps);
+        return (trials > Long.MAX_VALUE / perTrial) ? Long.MAX_VALUE : trials * perTrial;
+    }
+
+    private static long saturatingAdd(long a, long b) {
+        return (b > Long.MAX_VALUE - a) ? Long.MAX_VALUE : a + b;
+    }
+
+    // The matcher chosen for a stream and the parameters it runs with
+    public static class Plan {
+        private final EdgeStream stream;
+        private final Algorithm algorithm;
+        private final double eps; // eps of the chosen matcher, in its own convention
+        private final long expectedPasses;
+        private final boolean worstCase; // whether the matcher has a worst-case (1 - eps) guarantee
+        private final Bipartition bipartition; // detected bipartition for ALT, null otherwise
+        private final PassBudget budget;
+
+        private Plan(EdgeStream stream, Algorithm algorithm, double eps, long expectedPasses, boolean worstCase,
+                     Bipartition bipartition, PassBudget budget) {
+            this.stream = stream;
+            this.algorithm = algorithm;
+            this.eps = eps;
+            this.expectedPasses = expectedPasses;
+            this.worstCase = worstCase;
+            this.bipartition = bipartition;
+            this.budget = budget;
+        }
+
+        public Algorithm getAlgorithm() {
+            return algorithm;
+        }
+
+        // The eps to pass to the matcher, e.g. eps / (1 - eps) for McGregor
+        public double getEps() {
+            return eps;
+        }
+
+        // Expected number of passes over the stream, including the bipartiteness check made by the planner
+        public long getExpectedPasses() {
+            return expectedPasses;
+        }
+
+        public boolean isWithinBudget() {
+            return expectedPasses <= budget.getMaxPasses();
+        }
+
+        /* Whether the planned run is guaranteed to return a (1 - eps)-approximation: its matcher has a worst-case
+         * guarantee and is expected to finish within the budget. The bipartite reduction never is; its guarantee is
+         * heuristic. */
+        public boolean isGuaranteed() {
+            return worstCase && isWithinBudget();
+        }
+
+        // A new matcher configured as planned
+        public StreamingMatcher matcher() {
+            switch (algorithm) {
+                case GREEDY:
+                    return new GreedyMatcher(stream);
+                case ALT:
+                    return new ALT(stream, bipartition);
+                default:
+                    McGregor mcGregor = new McGregor(stream);
+                    mcGregor.setEngine(algorithm == Algorithm.MCGREGOR_LAYERED
+                            ? McGregor.Engine.LAYERED : McGregor.Engine.BIPARTITE_REDUCTION);
+                    return mcGregor;
+            }
+        }
+
+        // Run the planned matcher, under the budget of the plan when the matcher supports one
+        public IntMatching execute() {
+            StreamingMatcher matcher = matcher();
+            if (matcher instanceof ProgressiveMatcher) {
+                return ((ProgressiveMatcher) matcher).findApproximateIntMatching(eps, budget);
+            }
+            return matcher.findApproximateIntMatching(eps);
+        }
+
+        @Override
+        public String toString() {
+            String passes = (expectedPasses == Long.MAX_VALUE) ? "more than 2^63" : Long.toString(expectedPasses);
+            return algorithm + " with eps = " + eps + " over " + stream.vertexCount() + " vertices and " + stream.size()
+                    + " edges: " + passes + " expected passes" + (worstCase ? "" : ", heuristic guarantee")
+                    + (isWithinBudget() ? "" : ", over the pass budget");
+        }
+    }
+}
@@ -0,0 +1,13 @@
+/* Receives the current matching of a long run after every ALT round or McGregor phase, so that a caller can use the
+ * best answer so far before the run returns. Unlike MatchingListener, whose callbacks cost nothing, every callback
+ * hands over a fresh copy of the matching, which costs O(n) per round or phase; matchers only make the copies when a
+ * progress receiver other than NONE is set. Callbacks come from the thread of the run (from the threads of the trials,
+ * with McGregor's setTrials), so implementations must be thread-safe. */
+public interface MatchingProgress {
+    // Receiver that ignores every matching; the default of the matchers
+    MatchingProgress NONE = (algorithm, round, matching) -> {
+    };
+
+    // Round (ALT) or phase (McGregor) number round, counted from 1, ended with matching, which the receiver may keep
+    void onMatching(String algorithm, long round, IntMatching matching);
+}
@@ -1,260 +1,855 @@
-import org.javatuples.Pair;
-import org.javatuples.Quartet;
-import org.jgrapht.Graph;
 import org.jgrapht.graph.DefaultEdge;
-import org.jgrapht.graph.DefaultUndirectedGraph;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.concurrent.ThreadLocalRandom;
 
-public class McGregor {
-    private final List<DefaultEdge> stream;
+public class McGregor implements ProgressiveMatcher {
+    private final EdgeStream stream;
+    private final DefaultEdgeStream edges; // null unless the stream was given as a List<DefaultEdge>
     private int k;
-    private int r;
+    private long r;
+    private PassBudget.Tracker tracker; // passes and phases of the current run
+    private ForkJoinPool pool; // null when the initial maximal matching is computed sequentially
+    private int numShards;
+    private long seed = 42;
+    private boolean sharedScan = false;
+    private MatchingListener listener = MatchingListener.NONE;
+    private VertexStore store = VertexStore.HEAP;
+    private MatchingProgress progress = MatchingProgress.NONE;
+    private EdgeStream passStream; // the stream, instrumented for the listener while a run is in progress
+    private Engine engine = Engine.LAYERED;
+    private int trials = 1;
+    private ForkJoinPool trialPool;
+    private int bestTrial = 0; // trial whose matching the last run returned
+    private static final int SIDE_A = 0;
+    private static final int SIDE_B = 1;
+
+    /* The algorithm a run uses to augment its initial maximal matching. LAYERED is McGregor's layered augmenting paths,
+     * whose (1 + eps) guarantee costs 4k^2(8k+10)(k-1)(2k)^k phases with k = ceil(1/eps + 1), which is impractical below
+     * eps = 0.5. BIPARTITE_REDUCTION repeatedly runs ALT on random bipartite subgraphs containing the matching and
+     * applies the augmenting paths it finds (see BipartiteReduction): it has no worst-case guarantee, but k 2^k trials
+     * of at most 2 ceil(2/eps^2) passes each with k = ceil(1/eps). Both stop early when the budget of the run is
+     * exhausted. */
+    public enum Engine {
+        LAYERED,
+        BIPARTITE_REDUCTION
+    }
 
     public McGregor(List<DefaultEdge> stream) {
+        this(new DefaultEdgeStream(stream));
+    }
+
+    public McGregor(EdgeStream stream) {
         this.stream = stream;
+        this.edges = (stream instanceof DefaultEdgeStream) ? (DefaultEdgeStream) stream : null;
+    }
+
+    // Compute the initial maximal matching with the parallel engine over numShards shards of the stream
+    public void setParallelism(ForkJoinPool pool, int numShards) {
+        if (numShards < 1) {
+            throw new IllegalArgumentException("Number of shards must be positive.");
+        }
+        this.pool = pool;
+        this.numShards = numShards;
+    }
+
+    public void setEngine(Engine engine) {
+        this.engine = Objects.requireNonNull(engine);
+    }
+
+    // Seed of the random layerings (or cuts); runs with the same seed and budget return the same matching
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /* Evaluate the k layer graphs of each phase concurrently, one thread each, with their passes multiplexed over a
+     * SharedScan: passes that the k candidates need at the same time are served by a single read of the stream, which
+     * cuts the number of passes per phase by up to a factor of k. The candidates and their random layerings are the
+     * same as in the sequential mode, so both modes return the same matching. */
+    public void setSharedScan(boolean enabled) {
+        this.sharedScan = enabled;
+    }
+
+    /* Run trials independent randomized runs on the pool and keep the largest matching (the first one, on ties). The
+     * seed of each trial is drawn from its own SplittableRandom, split from one seeded with the seed set by setSeed, so
+     * the result only depends on that master seed and not on scheduling. The trials compute their initial maximal
+     * matching sequentially, since the parallel engine is not deterministic, and share the listener. Each trial starts
+     * its own tracker from the budget of the run. */
+    public void setTrials(int trials, ForkJoinPool pool) {
+        if (trials < 1) {
+            throw new IllegalArgumentException("Number of trials must be positive.");
+        }
+        this.trials = trials;
+        this.trialPool = pool;
+    }
+
+    public void setTrials(int trials) {
+        setTrials(trials, ForkJoinPool.commonPool());
+    }
+
+    /* Keep the vertex state of every subsequent run in the given store, e.g. VertexStore.OFF_HEAP: the labels, sets,
+     * Gamma and tags of the layer graphs, or the auctions of the bipartite reduction. As in ALT, each store has its own
+     * layer graph class whose passes are written out over its own arrays. The matching itself and the augmenting path
+     * buffers stay on the heap. */
+    public void setVertexStore(VertexStore store) {
+        this.store = Objects.requireNonNull(store);
+    }
+
+    // Report the passes, phases, layer graphs and vertex-state memory of every subsequent run to listener
+    public void setListener(MatchingListener listener) {
+        this.listener = Objects.requireNonNull(listener);
+    }
+
+    /* Send the matching of every phase (every trial of the bipartite reduction) of subsequent runs to progress. With
+     * setTrials the trials run concurrently, and only matchings larger than every one sent before are sent, so the
+     * receiver sees the best matching so far across trials. */
+    @Override
+    public void setProgress(MatchingProgress progress) {
+        this.progress = Objects.requireNonNull(progress);
+    }
+
+    // Run Find-Matching and translate the result back into the DefaultEdges of the stream McGregor was constructed with
+    @Override
+    public Set<DefaultEdge> findApproximateMaxMatching(double eps) {
+        return findApproximateMaxMatching(eps, PassBudget.unlimited());
+    }
+
+    // Same as findApproximateMaxMatching(eps), but stops with the best matching so far once the budget is exhausted
+    public Set<DefaultEdge> findApproximateMaxMatching(double eps, PassBudget budget) {
+        if (edges == null) {
+            throw new IllegalStateException("findApproximateMaxMatching requires a McGregor constructed from a List<DefaultEdge>; use findApproximateIntMatching instead.");
+        }
+        return edges.toEdgeSet(findApproximateIntMatching(eps, budget));
+    }
+
+    @Override
+    public IntMatching findApproximateIntMatching(double eps) {
+        return findApproximateIntMatching(eps, PassBudget.unlimited());
     }
 
     /* Implementation of the Find-Matching algorithm in Andrew McGregor's "Finding Graph Matchings in Data Streams"
     *  paper (2005). Paper available at https://people.cs.umass.edu/~mcgregor/papers/05-approx1.pdf */
-    public Set<DefaultEdge> findApproximateMaxMatching(double eps) {
+    @Override
+    public IntMatching findApproximateIntMatching(double eps, PassBudget budget) {
         if (eps <= 0 || eps >= 1) {
             throw new IllegalArgumentException("Argument to findApproximateMatching must be a real number strictly between 0 and 1");
         }
-        Graph<Integer, DefaultEdge> g = new DefaultUndirectedGraph<>(DefaultEdge.class);
-        Set<DefaultEdge> M = GraphUtils.findMaximalMatching(this.stream, g);
+        if (trials > 1) {
+            return findBestOfTrials(eps, budget);
+        }
+        bestTrial = 0;
+        this.tracker = budget.start();
+        InstrumentedEdgeStream instrumented = (listener == MatchingListener.NONE) ? null
+                : new InstrumentedEdgeStream(stream, listener, "McGregor");
+        this.passStream = (instrumented == null) ? stream : instrumented;
+        listener.onRunStart("McGregor", stream.vertexCount(), stream.size());
+        tracker.recordPass();
+        long passStart = System.nanoTime();
+        IntMatching M = (pool == null) ? GraphUtils.findMaximalMatching(passStream)
+                : GraphUtils.findMaximalMatching(this.stream, pool, numShards);
+        if (pool != null && instrumented != null) {
+            instrumented.reportPass(stream.size(), System.nanoTime() - passStart);
+        }
+        if (engine == Engine.BIPARTITE_REDUCTION) {
+            BipartiteReduction reduction = new BipartiteReduction(passStream, tracker, seed, listener, progress, store);
+            reduction.augment(M, eps);
+            listener.onRunEnd("McGregor", M.size(), tracker.getPasses(), 4L * stream.vertexCount() + reduction.vertexStateBytes());
+            return M;
+        }
         this.k = (int) Math.ceil(1.0/eps + 1);
-        this.r = 4 * (k * k) * (8*k + 10) * (k-1) * ((int) Math.pow(2*k, k) ); // Overflows when k >= 6 - could use BigInteger if added complexity and slight performance issues are not a problem
-        for (int j = 1; j <= r; j++) {
-            Set<DefaultEdge> maxCandidateMatching = new HashSet<>();
-            for (int i = 1; i <= k; i++) {
-                Set<DefaultEdge> matching = findAugPaths(M, i);
-                if (matching.size() > maxCandidateMatching.size()) {
-                    maxCandidateMatching = matching;
+        this.r = phaseCount(k);
+        // Layer graph state is preallocated once per run: a single layer graph reused by all k candidates of a phase,
+        // or one per candidate when they run concurrently
+        LayerGraph[] layerGraphs = new LayerGraph[sharedScan ? k : 1];
+        for (int i = 0; i < layerGraphs.length; i++) {
+            layerGraphs[i] = store.isOffHeap() ? new OffHeapLayerGraph() : new HeapLayerGraph();
+        }
+        AugmentingPaths bestPaths = new AugmentingPaths();
+        AugmentingPaths candidatePaths = new AugmentingPaths();
+        ExecutorService executor = sharedScan ? Executors.newFixedThreadPool(k, runnable -> {
+            Thread thread = new Thread(runnable, "mcgregor-layer-graph");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+        try (SharedScan scan = sharedScan ? new SharedScan(passStream, tracker) : null) {
+            for (long j = 1; j <= r && !tracker.isExhausted(); j++) {
+                // Each of the k layer graphs yields a set of vertex-disjoint augmenting paths for M; only the set with
+                // the most paths (the first one, on ties) is applied, in place, at the end of the phase
+                if (scan == null) {
+                    bestPaths.clear();
+                    try {
+                        for (int i = 1; i <= k; i++) {
+                            layerGraphs[0].findAugPaths(M, j, i, candidatePaths, null);
+                            if (candidatePaths.count() > bestPaths.count()) {
+                                AugmentingPaths swap = bestPaths;
+                                bestPaths = candidatePaths;
+                                candidatePaths = swap;
+                            }
+                        }
+                    } catch (PassBudget.ExhaustedException e) {
+                        // the candidate being built is discarded; the loop condition ends the run after this phase
+                    }
+                } else {
+                    bestPaths = findAugPathsConcurrently(M, j, layerGraphs, scan, executor);
+                }
+                boolean improved = bestPaths.count() > 0;
+                bestPaths.applyTo(M);
+                tracker.recordPhase(improved);
+                listener.onRound("McGregor", j, M.size());
+                if (progress != MatchingProgress.NONE) {
+                    progress.onMatching("McGregor", j, M.copy());
                 }
             }
-            M = maxCandidateMatching;
-            // Uncomment the following if statement to stop at th 100th iteration
-//            if (j == 100) {
-//                System.out.println("The size of the best matching found after iteration " + j + " is " + M.size());
-//                return M;
-//            }
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
         }
+        // In the concurrent mode bestPaths is one of the layer graphs' own buffers
+        long sequentialPathBytes = sharedScan ? 0 : bestPaths.capacityBytes() + candidatePaths.capacityBytes();
+        listener.onRunEnd("McGregor", M.size(), tracker.getPasses(), vertexStateBytes(layerGraphs, sequentialPathBytes));
         return M;
     }
 
-    // Implementation of the Find-Aug-Paths subroutine in the paper
-    private Set<DefaultEdge> findAugPaths(Set<DefaultEdge> M, int i) {
-        Quartet<Map<Integer, Pair<Integer, String>>, Set<Integer>, Map<Integer, Integer>, Map<Integer, Integer>> quartet
-                = createLayerGraph(M, i);
-        Map<Integer, Pair<Integer, String>> L = quartet.getValue0();
-        Set<Integer> firstLayer = quartet.getValue1();
-        Map<Integer, Integer> matching = quartet.getValue2();
-        Map<Integer, Integer> layerSizes = quartet.getValue3();
-        Map<Integer, Integer> tags = new HashMap<>();
-        findLayerPaths(L, firstLayer, 1.0 / (r * (2*k + 2)), i+1, tags, matching, layerSizes);
-        Set<DefaultEdge> P = getPathsFromTags(tags, firstLayer);
-        return getSymmetricDifference(M, P);
-    }
-
-    // Implementation of the Create-Layer-Graph subroutine in the paper
-    private Quartet<Map<Integer, Pair<Integer, String>>, Set<Integer>, Map<Integer, Integer>,
-            Map<Integer, Integer>> createLayerGraph(Set<DefaultEdge> M, int i) {
-        Graph<Integer, DefaultEdge> g = new DefaultUndirectedGraph<>(DefaultEdge.class);
-        Set<Integer> freeVertices = getFreeVertices(M);
-        Map<Integer, Pair<Integer, String>> vertexL = new HashMap<>();
-        Map<Integer, Integer> matching = new HashMap<>();
-        Map<Integer, Integer> layerSizes = new HashMap<>();
-        for (int j = 0; j <= i + 1; j++) {
-            layerSizes.put(j, 0);
-        }
-        Random rand = new Random(42);
-        Set<Integer> firstLayer = new HashSet<>();
-        for (int v : freeVertices) {
-            int randLayer = rand.nextBoolean() ? 0 : (i+1);
-            vertexL.put(v, Pair.with(randLayer, "a"));
-            layerSizes.put(randLayer, layerSizes.getOrDefault(randLayer,0) + 1);
-            if (randLayer == (i+1)) {
-                firstLayer.add(v);
+    /* Bytes of vertex-indexed state held during a run: the matching, the arrays of the layer graphs (labels, sets,
+     * Gamma and tags with their stamps, and the per-layer bookkeeping) and the capacity of the augmenting path buffers.
+     * Find-Layer-Paths allocates nothing else, so this is all of the state of a run. */
+    private long vertexStateBytes(LayerGraph[] layerGraphs, long sequentialPathBytes) {
+        long bytes = 4L * stream.vertexCount() + sequentialPathBytes;
+        for (LayerGraph layerGraph : layerGraphs) {
+            bytes += 7 * 4L * stream.vertexCount() + (5 * 4L + 8) * layerGraph.layerSizes.length + layerGraph.paths.capacityBytes();
+        }
+        return bytes;
+    }
+
+    // Run Find-Aug-Paths for the k layer graphs of phase j concurrently over the shared scan and return the best paths
+    private AugmentingPaths findAugPathsConcurrently(IntMatching M, long j, LayerGraph[] layerGraphs, SharedScan scan,
+                                                    ExecutorService executor) {
+        List<Future<?>> futures = new ArrayList<>();
+        // Every participant joins before any candidate starts, so no pass is served to only part of the candidates
+        SharedScan.Participant[] participants = new SharedScan.Participant[k];
+        for (int i = 1; i <= k; i++) {
+            participants[i - 1] = scan.join();
+        }
+        for (int i = 1; i <= k; i++) {
+            LayerGraph layerGraph = layerGraphs[i - 1];
+            SharedScan.Participant participant = participants[i - 1];
+            int layers = i;
+            futures.add(executor.submit(() -> {
+                try {
+                    layerGraph.findAugPaths(M, j, layers, layerGraph.paths, participant);
+                } catch (PassBudget.ExhaustedException e) {
+                    layerGraph.paths.clear(); // discard the unfinished candidate
+                } finally {
+                    participant.leave();
+                }
+            }));
+        }
+        AugmentingPaths bestPaths = null;
+        for (int i = 1; i <= k; i++) {
+            try {
+                futures.get(i - 1).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the layer graphs of a phase.", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Find-Aug-Paths failed on layer graph " + i + ".", e.getCause());
+            }
+            AugmentingPaths paths = layerGraphs[i - 1].paths;
+            if (bestPaths == null || paths.count() > bestPaths.count()) {
+                bestPaths = paths;
+            }
+        }
+        return bestPaths;
+    }
+
+    // Run the trials set by setTrials concurrently and return the largest of their matchings
+    private IntMatching findBestOfTrials(double eps, PassBudget budget) {
+        long[] trialSeeds = trialSeeds(seed, trials);
+        McGregor[] runs = new McGregor[trials];
+        MatchingProgress bestSoFar = new MatchingProgress() {
+            private int bestSize = -1;
+
+            @Override
+            public synchronized void onMatching(String algorithm, long round, IntMatching matching) {
+                if (matching.size() > bestSize) {
+                    bestSize = matching.size();
+                    progress.onMatching(algorithm, round, matching);
+                }
+            }
+        };
+        IntMatching[] matchings = new IntMatching[trials];
+        for (int t = 0; t < trials; t++) {
+            runs[t] = new McGregor(stream);
+            runs[t].setSeed(trialSeeds[t]);
+            runs[t].setEngine(engine);
+            runs[t].setSharedScan(sharedScan);
+            runs[t].setVertexStore(store);
+            runs[t].setListener(listener);
+            if (progress != MatchingProgress.NONE) {
+                runs[t].setProgress(bestSoFar);
             }
         }
-        for (DefaultEdge edge : M) {
-            int u = g.getEdgeSource(edge);
-            int v = g.getEdgeTarget(edge);
-            int j = rand.nextInt(i) + 1;
-            layerSizes.put(j, layerSizes.getOrDefault(j, 0) + 1);
-            vertexL.put(u, Pair.with(j, "a"));
-            vertexL.put(v, Pair.with(j, "b"));
-            matching.put(u, v);
-            matching.put(v, u);
-        }
-        return Quartet.with(vertexL, firstLayer, matching, layerSizes);
-    }
-
-    // Recover augmenting paths from the tags placed on vertices in findLayerPaths
-    private Set<DefaultEdge> getPathsFromTags(Map<Integer, Integer> tags, Set<Integer> firstLayer) {
-        Graph<Integer, DefaultEdge> g = new DefaultUndirectedGraph<>(DefaultEdge.class);
-        Set<Set<Integer>> edgeSet = new HashSet<>();
-        Set<DefaultEdge> P = new HashSet<>();
-        if (tags == null || tags.size() == 0) {
-            return P;
-        }
-        for (int v : firstLayer) {
-            if (tags.get(v) == -1) {
-                continue;
+        EdgeShards.forRange(trialPool, 0, trials, t -> matchings[t] = runs[t].findApproximateIntMatching(eps, budget));
+        bestTrial = 0;
+        for (int t = 1; t < trials; t++) {
+            if (matchings[t].size() > matchings[bestTrial].size()) {
+                bestTrial = t;
             }
-            while (tags.get(v) != v) {
-                int u = tags.get(v);
-                Set<Integer> newEdge = new HashSet<>();
-                newEdge.add(v);
-                newEdge.add(u);
-                edgeSet.add(newEdge);
-                v = u;
+        }
+        this.tracker = runs[bestTrial].tracker;
+        return matchings[bestTrial];
+    }
 
+    // Seeds of the trials of a run with the given master seed, each drawn from its own split SplittableRandom
+    static long[] trialSeeds(long seed, int trials) {
+        SplittableRandom master = new SplittableRandom(seed);
+        long[] trialSeeds = new long[trials];
+        for (int t = 0; t < trials; t++) {
+            trialSeeds[t] = master.split().nextLong();
+        }
+        return trialSeeds;
+    }
+
+    // Trial whose matching the last run returned, counted from 0; always 0 without setTrials
+    public int getBestTrial() {
+        return bestTrial;
+    }
+
+    // Number of passes made by the last run (by its best trial, with setTrials)
+    public long getPassCount() {
+        return tracker == null ? 0 : tracker.getPasses();
+    }
+
+    // Number of phases completed by the last run (by its best trial, with setTrials)
+    public long getPhaseCount() {
+        return tracker == null ? 0 : tracker.getPhases();
+    }
+
+    /* Number of phases r = 4k^2(8k+10)(k-1)(2k)^k prescribed by the paper, saturating at Long.MAX_VALUE (reached for
+     * k >= 11) instead of overflowing. */
+    static long phaseCount(int k) {
+        try {
+            long r = Math.multiplyExact(4L * k * k, 8L * k + 10);
+            r = Math.multiplyExact(r, k - 1L);
+            for (int i = 0; i < k; i++) {
+                r = Math.multiplyExact(r, 2L * k);
             }
+            return r;
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    // Open a pass over the stream, charging it to the budget of the current run
+    private EdgeStream.Cursor openPass() {
+        if (tracker.isExhausted()) {
+            throw new PassBudget.ExhaustedException();
         }
-        for (DefaultEdge edge : stream) {
-            int v = g.getEdgeSource(edge);
-            int u = g.getEdgeTarget(edge);
-            Set<Integer> newEdge = new HashSet<>();
-            newEdge.add(v);
-            newEdge.add(u);
-            if (edgeSet.contains(newEdge)) {
-                P.add(edge);
+        tracker.recordPass();
+        return passStream.pass();
+    }
+
+    // Random seed of the layering of layer graph i in phase j, derived from the run's seed with a SplitMix64 finalizer
+    private static long layeringSeed(long seed, long j, int i) {
+        long z = seed + 0x9E3779B97F4A7C15L * (j * 64 + i);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // Layer labels (layer, side) are packed into a single int, the side being the lowest bit
+    private static int encodeLabel(int layer, int side) {
+        return (layer << 1) | side;
+    }
+
+    private static int layerOf(int label) {
+        return label >> 1;
+    }
+
+    /* The state of one layer graph: labels, layer sizes, the vertex sets of Find-Layer-Paths and the tags, preallocated
+     * once per run and overwritten by every call to findAugPaths. The hashed sets and maps of the paper's pseudocode
+     * are replaced by arrays stamped with generations: a vertex belongs to a set (or has a tag, or a Gamma partner)
+     * when its stamp equals the generation of that set, so starting a new set never clears anything. The vertex-indexed
+     * arrays are held by a subclass for each store, and the pass over the stream is written out in each subclass: the
+     * heap layer graph indexes plain Java arrays, so its inner loop is exactly that of a layer graph that knows nothing
+     * of other stores. The per-layer bookkeeping, of size k + 2, stays in Java arrays. */
+    private abstract class LayerGraph {
+        final int[] layerSizes = new int[k + 2];
+        /* The set S of each active Find-Layer-Paths frame, back to back: the set of layer j (vertices of layer j on side B,
+         * or the free vertices of layer i + 1 for the first layer) starts at setStarts[j] and holds setSizes[j] vertices.
+         * The sets of different layers are disjoint, so a single array of set stamps serves all of them. */
+        final int[] setStarts = new int[k + 2];
+        final int[] setSizes = new int[k + 2];
+        final int[] setGenerations = new int[k + 2];
+        // Gamma, the maximal matching between S and layer j - 1 found by each frame, stamped with gammaGenerations[j]
+        final int[] gammaGenerations = new int[k + 2];
+        int tagGeneration; // tags of the current findAugPaths are stamped with it
+        private final double[] deltas = new double[k + 2]; // delta of the frame of each layer
+        private int generation = 0;
+        private final AugmentingPaths paths = new AugmentingPaths(); // result when running concurrently
+        private Random rand;
+        private SharedScan.Participant participant;
+        private int recursionDepth; // deepest Find-Layer-Paths frame of the current findAugPaths
+
+        // Label of the vertex, encoded by encodeLabel
+        abstract int label(int v);
+
+        abstract void setLabel(int v, int label);
+
+        // Vertex at position m of the back-to-back sets
+        abstract int setMember(int m);
+
+        // Store v at position m of the sets, as a member of the set of the given generation
+        abstract void addToSet(int m, int v, int generation);
+
+        // Partner of v in the Gamma of the given generation, or -1 if it has none there
+        abstract int gammaPartner(int v, int generation);
+
+        // Tag of v in the current findAugPaths; -1 marks a vertex from which no path was found
+        abstract int tagOf(int v);
+
+        abstract boolean isTagged(int v);
+
+        abstract void tag(int v, int tag);
+
+        // Reset the set, Gamma and tag stamps of every vertex to 0
+        abstract void clearStamps();
+
+        /* One pass of the frame of layer j: greedily match S to the untagged vertices of layer j - 1 on side A into a
+         * fresh Gamma, and collect the mates of the matched layer j - 1 vertices into a fresh S' (the set of layer
+         * j - 1). When skipTaggedSources is set, the vertices of S that are already tagged are left out. */
+        abstract void scanLayer(int j, boolean skipTaggedSources, IntMatching matching);
+
+        // Implementation of the Find-Aug-Paths subroutine in the paper for layer graph i of phase j; the augmenting
+        // paths found are stored in paths. Passes are read from the shared scan through participant, if not null.
+        private void findAugPaths(IntMatching M, long j, int i, AugmentingPaths paths, SharedScan.Participant participant) {
+            this.participant = participant;
+            this.rand = new Random(layeringSeed(seed, j, i));
+            createLayerGraph(M, i);
+            tagGeneration = nextGeneration();
+            recursionDepth = 0;
+            findLayerPaths(1.0 / ((double) r * (2*k + 2)), i+1, M);
+            getPathsFromTags(i + 1, paths);
+            listener.onLayerGraph("McGregor", j, i, paths.count(), recursionDepth);
+        }
+
+        /* Implementation of the Create-Layer-Graph subroutine in the paper. Every free vertex is placed in layer 0 or
+         * i + 1 and every matched edge in a random layer between 1 and i, overwriting the preallocated labels and
+         * layerSizes; the free vertices of layer i + 1 form the set of the first Find-Layer-Paths frame. Vertices that
+         * do not appear in the stream are free and labelled like any other free vertex; having no edges, they never lie
+         * on an augmenting path. */
+        private void createLayerGraph(IntMatching M, int i) {
+            Arrays.fill(layerSizes, 0);
+            for (int u = 0; u < M.vertexCount(); u++) {
+                int v = M.mate(u);
+                if (v == -1) {
+                    int randLayer = rand.nextBoolean() ? 0 : (i+1);
+                    setLabel(u, encodeLabel(randLayer, SIDE_A));
+                    layerSizes[randLayer]++;
+                } else if (u < v) { // visit each matched edge once, from its smaller endpoint
+                    int j = rand.nextInt(i) + 1;
+                    layerSizes[j]++;
+                    setLabel(u, encodeLabel(j, SIDE_A));
+                    setLabel(v, encodeLabel(j, SIDE_B));
+                }
             }
+            // The set of layer j holds at most the layerSizes[j] vertices of layer j on side B
+            for (int j = 1; j <= i; j++) {
+                setStarts[j + 1] = setStarts[j] + layerSizes[j];
+            }
+            int firstLayerGeneration = nextGeneration();
+            int firstLayerLabel = encodeLabel(i + 1, SIDE_A);
+            int firstLayerSize = 0;
+            for (int u = 0; u < M.vertexCount(); u++) {
+                if (label(u) == firstLayerLabel) {
+                    addToSet(setStarts[i + 1] + firstLayerSize++, u, firstLayerGeneration);
+                }
+            }
+            setSizes[i + 1] = firstLayerSize;
+            setGenerations[i + 1] = firstLayerGeneration;
         }
-        return P;
-    }
-
-    // Get all free vertices with respect to the matching M in the graph
-    private Set<Integer> getFreeVertices(Set<DefaultEdge> M) {
-        Graph<Integer, DefaultEdge> g = new DefaultUndirectedGraph<>(DefaultEdge.class);
-        Set<Integer> verticesCoveredByMatching = new HashSet<>();
-        Set<Integer> freeVertices = new HashSet<>();
-        for (DefaultEdge edge : M) {
-            int s = g.getEdgeSource(edge);
-            int t = g.getEdgeTarget(edge);
-            assert !verticesCoveredByMatching.contains(s) && !verticesCoveredByMatching.contains(t);
-            verticesCoveredByMatching.add(s);
-            verticesCoveredByMatching.add(t);
-        }
-        for (DefaultEdge edge : stream) {
-            int s = g.getEdgeSource(edge);
-            int t = g.getEdgeTarget(edge);
-            if (!verticesCoveredByMatching.contains(s)) {
-                freeVertices.add(s);
+
+        EdgeStream.Cursor openLayerPass() {
+            return (participant == null) ? openPass() : participant.pass();
+        }
+
+        // A fresh stamp; all stamps are cleared on the (practically unreachable) wrap-around of the counter
+        int nextGeneration() {
+            if (generation == Integer.MAX_VALUE) {
+                clearStamps();
+                generation = 0;
             }
-            if (!verticesCoveredByMatching.contains(t)) {
-                freeVertices.add(t);
+            return ++generation;
+        }
+
+        // Recover augmenting paths from the tags placed on vertices in findLayerPaths
+        private void getPathsFromTags(int firstLayer, AugmentingPaths paths) {
+            paths.clear();
+            int start = setStarts[firstLayer];
+            for (int m = start; m < start + setSizes[firstLayer]; m++) {
+                int v = setMember(m);
+                if (tagOf(v) == -1) {
+                    continue;
+                }
+                paths.startPath(v);
+                while (tagOf(v) != v) {
+                    int u = tagOf(v);
+                    paths.extend(u);
+                    v = u;
+                }
             }
         }
-        return freeVertices;
-    }
-
-    // Implementation of the Find-Layer-Paths subroutine in the paper
-    private void findLayerPaths(Map<Integer, Pair<Integer, String>> L, Set<Integer> S,
-                                double delta, int j, Map<Integer, Integer> tags, Map<Integer, Integer> matching,
-                                Map<Integer, Integer> layerSizes) {
-        Graph<Integer, DefaultEdge> g = new DefaultUndirectedGraph<>(DefaultEdge.class);
-        Set<Integer> SPrime = new HashSet<>();
-        Map<Integer, Integer> Gamma = new HashMap<>();
-        Set<Integer> verticesCoveredByMatching = new HashSet<>();
-        for (DefaultEdge edge : stream) {
-            int s = g.getEdgeSource(edge);
-            int t = g.getEdgeTarget(edge);
-            Pair<Integer, String> sLayer = L.get(s);
-            Pair<Integer, String> tLayer = L.get(t);
-
-            if ((S.contains(s) && tLayer.equals(Pair.with(j - 1, "a")) && !tags.containsKey(t)) ||
-                    (S.contains(t) && sLayer.equals(Pair.with(j - 1, "a")) && !tags.containsKey(s))) {
-                if (!verticesCoveredByMatching.contains(s) && !verticesCoveredByMatching.contains(t)) {
-                    Gamma.put(s, t);
-                    Gamma.put(t, s);
-                    verticesCoveredByMatching.add(s);
-                    verticesCoveredByMatching.add(t);
-                    if (L.get(s).getValue0() == (j - 1)) {
-                        SPrime.add(matching.get(s));
-                    } else {
-                        assert L.get(t).getValue0() == (j -1);
-                        SPrime.add(matching.get(t));
+
+        /* Implementation of the Find-Layer-Paths subroutine in the paper, starting from the set of layer top. The
+         * recursive calls on S' with delta^2 are made on an explicit stack: the frame of layer j only needs its delta,
+         * its set S and its Gamma, all of which live in the per-layer arrays, so descending means j - 1 and returning
+         * means j + 1. */
+        private void findLayerPaths(double delta, int top, IntMatching matching) {
+            deltas[top] = delta;
+            int j = top;
+            boolean resumed = false; // whether frame j is resuming after its call on layer j - 1 returned
+            while (true) {
+                if (!resumed) {
+                    recursionDepth = Math.max(recursionDepth, top - j + 1);
+                    scanLayer(j, false, matching);
+                    if (j == 1) {
+                        tagLastLayer(matching);
                     }
+                } else {
+                    tagAlongGamma(j, matching);
+                    scanLayer(j, true, matching);
                 }
-
+                if (j > 1 && setSizes[j - 1] > deltas[j] * layerSizes[j - 1]) {
+                    deltas[j - 1] = deltas[j] * deltas[j];
+                    j--;
+                    resumed = false;
+                    continue;
+                }
+                if (j > 1) {
+                    tagUnreached(j, matching);
+                }
+                if (j == top) {
+                    return;
+                }
+                j++;
+                resumed = true;
             }
         }
-        if (j == 1) {
-            for (int u : S) {
-                if (Gamma.containsKey(u) && L.get(Gamma.get(u)).getValue0() == 0) {
-                    tags.put(u, Gamma.get(u));
-                    assert matching.get(u) != null;
-                    tags.put(matching.get(u), u);
-                    assert Gamma.get(u) != null;
-                    tags.put(Gamma.get(u), Gamma.get(u));
+
+        // Tag each vertex of the set of layer 1 with its Gamma partner in layer 0, or with -1 if it has none
+        private void tagLastLayer(IntMatching matching) {
+            int gammaGeneration = gammaGenerations[1];
+            for (int m = setStarts[1]; m < setStarts[1] + setSizes[1]; m++) {
+                int u = setMember(m);
+                assert matching.isMatched(u);
+                int partner = gammaPartner(u, gammaGeneration);
+                if (partner != -1 && layerOf(label(partner)) == 0) {
+                    tag(u, partner);
+                    tag(matching.mate(u), u);
+                    tag(partner, partner);
                 } else {
-                    tags.put(u, -1);
-                    assert matching.get(u) != null;
-                    tags.put(matching.get(u), -1);
+                    tag(u, -1);
+                    tag(matching.mate(u), -1);
                 }
             }
-            return;
-        }
-        while (SPrime.size() > delta * layerSizes.get(j-1)) {
-            findLayerPaths(L, SPrime, delta * delta, j - 1, tags, matching, layerSizes);
-            for (int v : SPrime) {
-                if (!tags.containsKey(v) || tags.get(v) != -1) {
-                    assert Gamma.get(matching.get(v)) != null;
-                    tags.put(Gamma.get(matching.get(v)), matching.get(v));
-                    tags.put(matching.get(v), v);
+        }
+
+        // Extend the paths found from S' (the set of layer j - 1) through Gamma to the vertices of S
+        private void tagAlongGamma(int j, IntMatching matching) {
+            for (int m = setStarts[j - 1]; m < setStarts[j - 1] + setSizes[j - 1]; m++) {
+                int v = setMember(m);
+                if (!isTagged(v) || tagOf(v) != -1) {
+                    int mate = matching.mate(v);
+                    int partner = gammaPartner(mate, gammaGenerations[j]);
+                    assert partner != -1;
+                    tag(partner, mate);
+                    tag(mate, v);
+                }
+            }
+        }
+
+        // Tag the vertices of the set of layer j from which no path was found with -1
+        private void tagUnreached(int j, IntMatching matching) {
+            for (int m = setStarts[j]; m < setStarts[j] + setSizes[j]; m++) {
+                int v = setMember(m);
+                if (!isTagged(v)) {
+                    tag(v, -1);
+                    if (matching.isMatched(v)) {
+                        tag(matching.mate(v), -1);
+                    }
                 }
             }
-            SPrime = new HashSet<>();
-            Gamma = new HashMap<>();
-            verticesCoveredByMatching = new HashSet<>();
-            for (DefaultEdge edge : stream) {
-                int s = g.getEdgeSource(edge);
-                int t = g.getEdgeTarget(edge);
-                if ((S.contains(s) && !tags.containsKey(s) && L.get(t).equals(Pair.with(j - 1, "a")) && !tags.containsKey(t)) ||
-                        (S.contains(t) && !tags.containsKey(t) && L.get(s).equals(Pair.with(j - 1, "a")) && !tags.containsKey(s))) {
-                    if (!verticesCoveredByMatching.contains(s) && !verticesCoveredByMatching.contains(t)) {
-                        Gamma.put(s, t);
-                        Gamma.put(t, s);
-                        verticesCoveredByMatching.add(s);
-                        verticesCoveredByMatching.add(t);
-                        if (L.get(s).getValue0() == (j - 1)) {
-                            SPrime.add(matching.get(s));
+        }
+    }
+
+    // The layer graph of VertexStore.HEAP, in Java arrays
+    private final class HeapLayerGraph extends LayerGraph {
+        private final int[] L = new int[stream.vertexCount()];
+        private final int[] setMembers = new int[stream.vertexCount()];
+        private final int[] setStamps = new int[stream.vertexCount()];
+        private final int[] gamma = new int[stream.vertexCount()];
+        private final int[] gammaStamps = new int[stream.vertexCount()];
+        private final int[] tags = new int[stream.vertexCount()];
+        private final int[] tagStamps = new int[stream.vertexCount()];
+
+        @Override
+        int label(int v) {
+            return L[v];
+        }
+
+        @Override
+        void setLabel(int v, int label) {
+            L[v] = label;
+        }
+
+        @Override
+        int setMember(int m) {
+            return setMembers[m];
+        }
+
+        @Override
+        void addToSet(int m, int v, int generation) {
+            setMembers[m] = v;
+            setStamps[v] = generation;
+        }
+
+        @Override
+        int gammaPartner(int v, int generation) {
+            return (gammaStamps[v] == generation) ? gamma[v] : -1;
+        }
+
+        @Override
+        int tagOf(int v) {
+            return tags[v];
+        }
+
+        @Override
+        boolean isTagged(int v) {
+            return tagStamps[v] == tagGeneration;
+        }
+
+        @Override
+        void tag(int v, int tag) {
+            tags[v] = tag;
+            tagStamps[v] = tagGeneration;
+        }
+
+        @Override
+        void clearStamps() {
+            Arrays.fill(setStamps, 0);
+            Arrays.fill(gammaStamps, 0);
+            Arrays.fill(tagStamps, 0);
+        }
+
+        @Override
+        void scanLayer(int j, boolean skipTaggedSources, IntMatching matching) {
+            int setGeneration = setGenerations[j];
+            int gammaGeneration = nextGeneration();
+            gammaGenerations[j] = gammaGeneration;
+            int primeGeneration = nextGeneration();
+            setGenerations[j - 1] = primeGeneration;
+            int primeStart = setStarts[j - 1];
+            int primeSize = 0;
+            int previousLayerA = encodeLabel(j - 1, SIDE_A);
+            EdgeStream.Cursor cursor = openLayerPass();
+            while (cursor.next()) {
+                int s = cursor.source();
+                int t = cursor.target();
+                if ((setStamps[s] == setGeneration && !(skipTaggedSources && isTagged(s)) && L[t] == previousLayerA && !isTagged(t)) ||
+                        (setStamps[t] == setGeneration && !(skipTaggedSources && isTagged(t)) && L[s] == previousLayerA && !isTagged(s))) {
+                    if (gammaStamps[s] != gammaGeneration && gammaStamps[t] != gammaGeneration) {
+                        gamma[s] = t;
+                        gamma[t] = s;
+                        gammaStamps[s] = gammaGeneration;
+                        gammaStamps[t] = gammaGeneration;
+                        if (j == 1) {
+                            continue; // the free vertices of layer 0 have no mate, and the frame of layer 1 has no S'
+                        }
+                        int prime;
+                        if (layerOf(L[s]) == (j - 1)) {
+                            prime = matching.mate(s);
                         } else {
-                            assert L.get(t).getValue0() == (j - 1);
-                            SPrime.add(matching.get(t));
+                            assert layerOf(L[t]) == (j - 1);
+                            prime = matching.mate(t);
                         }
+                        setMembers[primeStart + primeSize++] = prime;
+                        setStamps[prime] = primeGeneration;
                     }
-
                 }
             }
+            setSizes[j - 1] = primeSize;
+        }
+    }
+
+    // The layer graph of an off-heap store, in VertexStore arrays, organized like HeapLayerGraph
+    private final class OffHeapLayerGraph extends LayerGraph {
+        private final VertexStore.IntArray L = store.newIntArray(stream.vertexCount());
+        private final VertexStore.IntArray setMembers = store.newIntArray(stream.vertexCount());
+        private final VertexStore.IntArray setStamps = store.newIntArray(stream.vertexCount());
+        private final VertexStore.IntArray gamma = store.newIntArray(stream.vertexCount());
+        private final VertexStore.IntArray gammaStamps = store.newIntArray(stream.vertexCount());
+        private final VertexStore.IntArray tags = store.newIntArray(stream.vertexCount());
+        private final VertexStore.IntArray tagStamps = store.newIntArray(stream.vertexCount());
+
+        @Override
+        int label(int v) {
+            return L.get(v);
+        }
+
+        @Override
+        void setLabel(int v, int label) {
+            L.set(v, label);
+        }
+
+        @Override
+        int setMember(int m) {
+            return setMembers.get(m);
+        }
+
+        @Override
+        void addToSet(int m, int v, int generation) {
+            setMembers.set(m, v);
+            setStamps.set(v, generation);
         }
-        for (int v : S) {
-            if (!tags.containsKey(v)) {
-                tags.put(v, -1);
-                if (matching.containsKey(v)) {
-                    tags.put(matching.get(v), -1);
+
+        @Override
+        int gammaPartner(int v, int generation) {
+            return (gammaStamps.get(v) == generation) ? gamma.get(v) : -1;
+        }
+
+        @Override
+        int tagOf(int v) {
+            return tags.get(v);
+        }
+
+        @Override
+        boolean isTagged(int v) {
+            return tagStamps.get(v) == tagGeneration;
+        }
+
+        @Override
+        void tag(int v, int tag) {
+            tags.set(v, tag);
+            tagStamps.set(v, tagGeneration);
+        }
+
+        @Override
+        void clearStamps() {
+            setStamps.fill(0);
+            gammaStamps.fill(0);
+            tagStamps.fill(0);
+        }
+
+        @Override
+        void scanLayer(int j, boolean skipTaggedSources, IntMatching matching) {
+            int setGeneration = setGenerations[j];
+            int gammaGeneration = nextGeneration();
+            gammaGenerations[j] = gammaGeneration;
+            int primeGeneration = nextGeneration();
+            setGenerations[j - 1] = primeGeneration;
+            int primeStart = setStarts[j - 1];
+            int primeSize = 0;
+            int previousLayerA = encodeLabel(j - 1, SIDE_A);
+            EdgeStream.Cursor cursor = openLayerPass();
+            while (cursor.next()) {
+                int s = cursor.source();
+                int t = cursor.target();
+                if ((setStamps.get(s) == setGeneration && !(skipTaggedSources && isTagged(s)) && L.get(t) == previousLayerA && !isTagged(t)) ||
+                        (setStamps.get(t) == setGeneration && !(skipTaggedSources && isTagged(t)) && L.get(s) == previousLayerA && !isTagged(s))) {
+                    if (gammaStamps.get(s) != gammaGeneration && gammaStamps.get(t) != gammaGeneration) {
+                        gamma.set(s, t);
+                        gamma.set(t, s);
+                        gammaStamps.set(s, gammaGeneration);
+                        gammaStamps.set(t, gammaGeneration);
+                        if (j == 1) {
+                            continue; // the free vertices of layer 0 have no mate, and the frame of layer 1 has no S'
+                        }
+                        int prime;
+                        if (layerOf(L.get(s)) == (j - 1)) {
+                            prime = matching.mate(s);
+                        } else {
+                            assert layerOf(L.get(t)) == (j - 1);
+                            prime = matching.mate(t);
+                        }
+                        setMembers.set(primeStart + primeSize++, prime);
+                        setStamps.set(prime, primeGeneration);
+                    }
                 }
             }
+            setSizes[j - 1] = primeSize;
         }
     }
 
-    // Get the symmetric difference between two edge sets
-    private Set<DefaultEdge> getSymmetricDifference(Set<DefaultEdge> setA, Set<DefaultEdge> setB) {
-        Set<DefaultEdge> symmetricDiff = new HashSet<>();
-        for (DefaultEdge edge : setA) {
-            if (!setB.contains(edge)) {
-                symmetricDiff.add(edge);
+    /* Vertex-disjoint augmenting paths, stored back to back in one growable array. Applying them to a matching flips
+     * the matched status of every path edge in O(|P|), in place. */
+    private static class AugmentingPaths {
+        private int[] vertices = new int[16];
+        private boolean[] edgeWasMatched = new boolean[16]; // scratch space for applyTo, indexed like vertices
+        private int[] pathStarts = new int[16];
+        private int length = 0;
+        private int count = 0;
+
+        private void clear() {
+            length = 0;
+            count = 0;
+        }
+
+        // Number of augmenting paths, i.e. the increase in the size of a matching they are applied to
+        private int count() {
+            return count;
+        }
+
+        private void startPath(int v) {
+            if (count == pathStarts.length) {
+                pathStarts = Arrays.copyOf(pathStarts, 2 * count);
+            }
+            pathStarts[count++] = length;
+            extend(v);
+        }
+
+        private void extend(int v) {
+            if (length == vertices.length) {
+                vertices = Arrays.copyOf(vertices, 2 * length);
+                edgeWasMatched = Arrays.copyOf(edgeWasMatched, 2 * length);
             }
+            vertices[length++] = v;
+        }
+
+        // Bytes allocated for the paths, which only grow during a run
+        private long capacityBytes() {
+            return 5L * vertices.length + 4L * pathStarts.length;
         }
-        for (DefaultEdge edge : setB) {
-            if (!setA.contains(edge)) {
-                symmetricDiff.add(edge);
+
+        // Replace M by the symmetric difference of M and the edges of the paths
+        private void applyTo(IntMatching M) {
+            for (int p = 0; p < count; p++) {
+                int end = (p + 1 < count) ? pathStarts[p + 1] : length;
+                for (int e = pathStarts[p]; e + 1 < end; e++) {
+                    edgeWasMatched[e] = M.contains(vertices[e], vertices[e + 1]);
+                }
+            }
+            for (int p = 0; p < count; p++) {
+                int end = (p + 1 < count) ? pathStarts[p + 1] : length;
+                for (int e = pathStarts[p]; e + 1 < end; e++) {
+                    if (edgeWasMatched[e]) {
+                        M.remove(vertices[e]);
+                    }
+                }
+            }
+            for (int p = 0; p < count; p++) {
+                int end = (p + 1 < count) ? pathStarts[p + 1] : length;
+                for (int e = pathStarts[p]; e + 1 < end; e++) {
+                    if (!edgeWasMatched[e] && !M.contains(vertices[e], vertices[e + 1])) {
+                        M.add(vertices[e], vertices[e + 1]);
+                    }
+                }
             }
         }
-        return symmetricDiff;
     }
 }
@@ -0,0 +1,206 @@
+import org.jgrapht.graph.DefaultEdge;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Set;
+
+/* Single-pass matching for streams that cannot be rewound, e.g. replays of a log that is consumed once. It runs the
+ * greedy maximal matching of GraphUtils.findMaximalMatching and improves it within the same pass by tracking
+ * 3-augmenting paths: every matched vertex u remembers one neighbour w(u) that was free when their edge arrived (its
+ * "wing"). When an edge {s, t} arrives with s free and t matched to u, and w(u) is still free and distinct from s,
+ * the path w(u) - u = t - s is augmenting and is flipped, replacing the matched edge {u, t} by {w(u), u} and {t, s}.
+ *
+ * Matched vertices are never freed, so the result is still a maximal matching (a 1/2-approximation, whatever eps is
+ * requested) and its size never decreases during the pass. The state is three int arrays indexed by vertex (the mate
+ * array, the wings and the published snapshot), 12 n bytes that do not depend on the number of edges. They are
+ * allocated once, at construction: publications and resets overwrite them in place, so the matcher never holds more.
+ * Every matching it returns is a new 4 n-byte copy owned by the caller, so a run together with its result peaks at
+ * 16 n bytes. A maximum for the state can be given at construction, which then fails before any edge is read if the
+ * 12 n bytes do not fit it.
+ *
+ * Edges are either read from an EdgeStream by findApproximateIntMatching, in exactly one pass, or pushed one at a time
+ * with offer. Every snapshotInterval edges the matching is copied into the published snapshot, which snapshot copies
+ * out from any thread while the pass goes on; both copies hold a lock, so a publication waits for at most one O(n)
+ * snapshot. getMatching returns the current matching to the thread that feeds the edges. */
+public class OnePassMatcher implements StreamingMatcher {
+    private static final int NO_WING = -1;
+    private final EdgeStream stream; // null when the edges are pushed with offer
+    private final int vertexCount;
+    private final IntMatching matching;
+    private final int[] wings; // a neighbour of each matched vertex that was free when their edge arrived, or NO_WING
+    private final IntMatching published; // guarded by itself
+    private long snapshotInterval;
+    private long edgesSincePublication = 0;
+    private long edgeCount = 0; // edges offered since the last reset
+    private long augmentationCount = 0;
+    private MatchingListener listener = MatchingListener.NONE;
+
+    public OnePassMatcher(EdgeStream stream) {
+        this(stream, Long.MAX_VALUE);
+    }
+
+    // A matcher over a stream that fails unless its vertex state fits in maxVertexStateBytes bytes
+    public OnePassMatcher(EdgeStream stream, long maxVertexStateBytes) {
+        this(stream, stream.vertexCount(), maxVertexStateBytes);
+    }
+
+    // A matcher over the vertices 0, 1, ..., vertexCount - 1 whose edges are pushed with offer
+    public OnePassMatcher(int vertexCount) {
+        this(vertexCount, Long.MAX_VALUE);
+    }
+
+    public OnePassMatcher(int vertexCount, long maxVertexStateBytes) {
+        this(null, vertexCount, maxVertexStateBytes);
+    }
+
+    private OnePassMatcher(EdgeStream stream, int vertexCount, long maxVertexStateBytes) {
+        if (vertexStateBytes(vertexCount) > maxVertexStateBytes) {
+            throw new IllegalArgumentException("A one-pass matching of " + vertexCount + " vertices needs "
+                    + vertexStateBytes(vertexCount) + " bytes of vertex state, more than the maximum of " + maxVertexStateBytes + ".");
+        }
+        this.stream = stream;
+        this.vertexCount = vertexCount;
+        this.snapshotInterval = Math.max(vertexCount, 1);
+        this.matching = new IntMatching(vertexCount);
+        this.wings = new int[vertexCount];
+        this.published = new IntMatching(vertexCount);
+        reset();
+    }
+
+    // Bytes of vertex-indexed state held by a matcher over vertexCount vertices, whatever the number of edges; each
+    // matching it returns takes another 4 vertexCount bytes
+    public static long vertexStateBytes(int vertexCount) {
+        return 12L * vertexCount;
+    }
+
+    // Publish a snapshot every interval edges; the default is the number of vertices, so that copying the matching
+    // costs O(1) per edge
+    public void setSnapshotInterval(long interval) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("The snapshot interval must be positive.");
+        }
+        this.snapshotInterval = interval;
+    }
+
+    public void setListener(MatchingListener listener) {
+        this.listener = Objects.requireNonNull(listener);
+    }
+
+    // Forget every edge offered so far
+    public void reset() {
+        matching.clear();
+        Arrays.fill(wings, NO_WING);
+        edgeCount = 0;
+        augmentationCount = 0;
+        publish();
+    }
+
+    /* Process the next edge of the stream, returning true if it changed the matching (by being added to it or by
+     * completing a 3-augmenting path). Must be called from a single thread, or with external synchronization. */
+    public boolean offer(int s, int t) {
+        if (s < 0 || t < 0 || s >= vertexCount || t >= vertexCount) {
+            throw new IllegalArgumentException("Edge {" + s + ", " + t + "} is not over the " + vertexCount + " vertices of the matcher.");
+        }
+        edgeCount++;
+        boolean changed = process(s, t);
+        if (++edgesSincePublication >= snapshotInterval) {
+            publish();
+        }
+        return changed;
+    }
+
+    private boolean process(int s, int t) {
+        if (s == t) {
+            return false;
+        }
+        boolean sFree = !matching.isMatched(s);
+        boolean tFree = !matching.isMatched(t);
+        if (sFree && tFree) {
+            matching.add(s, t);
+            return true;
+        }
+        if (sFree) {
+            return extend(s, t);
+        }
+        if (tFree) {
+            return extend(t, s);
+        }
+        return false;
+    }
+
+    // Edge {free, matched}: flip the path wing(u) - u = matched - free if u, the mate of matched, has a usable wing,
+    // and otherwise make free the wing of matched
+    private boolean extend(int free, int matched) {
+        int u = matching.mate(matched);
+        int wing = wings[u];
+        if (wing != NO_WING && wing != free && !matching.isMatched(wing)) {
+            matching.remove(u);
+            matching.add(wing, u);
+            matching.add(matched, free);
+            wings[u] = NO_WING;
+            augmentationCount++;
+            return true;
+        }
+        if (wings[matched] == NO_WING || matching.isMatched(wings[matched])) {
+            wings[matched] = free;
+        }
+        return false;
+    }
+
+    // Copy the current matching into the published snapshot
+    public void publish() {
+        synchronized (published) {
+            published.copyFrom(matching);
+        }
+        edgesSincePublication = 0;
+    }
+
+    // The matching as of the last publication, at most snapshotInterval edges behind; safe to call from any thread
+    public IntMatching snapshot() {
+        synchronized (published) {
+            return published.copy();
+        }
+    }
+
+    // The current matching; only for the thread that offers the edges
+    public IntMatching getMatching() {
+        return matching.copy();
+    }
+
+    // Number of edges offered since construction or the last reset
+    public long getEdgeCount() {
+        return edgeCount;
+    }
+
+    // Number of 3-augmenting paths flipped since construction or the last reset
+    public long getAugmentationCount() {
+        return augmentationCount;
+    }
+
+    @Override
+    public Set<DefaultEdge> findApproximateMaxMatching(double eps) {
+        if (!(stream instanceof DefaultEdgeStream)) {
+            throw new IllegalStateException("findApproximateMaxMatching requires a DefaultEdgeStream; use findApproximateIntMatching instead.");
+        }
+        return ((DefaultEdgeStream) stream).toEdgeSet(findApproximateIntMatching(eps));
+    }
+
+    // Match the edges of the stream in a single pass, starting from an empty matching; eps is ignored
+    @Override
+    public IntMatching findApproximateIntMatching(double eps) {
+        if (stream == null) {
+            throw new IllegalStateException("This matcher has no stream; push its edges with offer instead.");
+        }
+        reset();
+        listener.onRunStart("OnePass", vertexCount, stream.size());
+        long passStart = System.nanoTime();
+        EdgeStream.Cursor cursor = stream.pass();
+        while (cursor.next()) {
+            offer(cursor.source(), cursor.target());
+        }
+        publish();
+        listener.onPass("OnePass", 1, edgeCount, System.nanoTime() - passStart);
+        listener.onRunEnd("OnePass", matching.size(), 1, vertexStateBytes(vertexCount));
+        return getMatching();
+    }
+}
@@ -0,0 +1,106 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/* Multi-threaded greedy maximal matching over the shards of an edge stream. Each worker scans its shard and claims
+ * both endpoints of an edge with compare-and-set on a shared mate array. Endpoints are always locked in increasing
+ * order of id, so workers never deadlock, and a worker that finds an endpoint locked waits for the (two-CAS long)
+ * claim to resolve instead of skipping the edge. An edge is therefore only skipped when one of its endpoints is
+ * permanently matched, which makes the result maximal after a single pass. Which maximal matching is found depends
+ * on thread scheduling. */
+public class ParallelMaximalMatching {
+    private static final int FREE = -1;
+    private static final int LOCKED = -2;
+
+    // Decides which edges of the stream belong to the subgraph whose maximal matching is computed
+    public interface EdgeFilter {
+        boolean accept(int source, int target);
+    }
+
+    private final EdgeStream stream;
+    private final ForkJoinPool pool;
+    private final EdgeShards shards;
+    private final AtomicIntegerArray mate;
+
+    public ParallelMaximalMatching(EdgeStream stream, ForkJoinPool pool, int numShards) {
+        this.stream = stream;
+        this.pool = pool;
+        this.shards = new EdgeShards(stream.size(), numShards);
+        this.mate = new AtomicIntegerArray(stream.vertexCount());
+    }
+
+    // Find a maximal matching of the whole stream
+    public static IntMatching find(EdgeStream stream, ForkJoinPool pool, int numShards) {
+        ParallelMaximalMatching engine = new ParallelMaximalMatching(stream, pool, numShards);
+        engine.run((source, target) -> true);
+        return engine.toIntMatching();
+    }
+
+    // Find a maximal matching of the subgraph formed by the edges accepted by filter, replacing the previous result
+    public void run(EdgeFilter filter) {
+        int vertexCount = mate.length();
+        int numChunks = shards.count();
+        EdgeShards.forRange(pool, 0, numChunks, chunk -> {
+            int from = (int) ((long) vertexCount * chunk / numChunks);
+            int to = (int) ((long) vertexCount * (chunk + 1) / numChunks);
+            for (int v = from; v < to; v++) {
+                mate.set(v, FREE);
+            }
+        });
+        shards.forEach(pool, shard -> {
+            EdgeStream.Cursor cursor = shards.pass(stream, shard);
+            while (cursor.next()) {
+                int s = cursor.source();
+                int t = cursor.target();
+                // LOCKED endpoints may still be released, so only matched endpoints let the edge be skipped here
+                if (s != t && mate.get(s) < 0 && mate.get(t) < 0 && filter.accept(s, t)) {
+                    tryMatch(Math.min(s, t), Math.max(s, t));
+                }
+            }
+        });
+    }
+
+    // Match {u, v} (with u < v) if both endpoints are still free once all concurrent claims on them have resolved
+    private void tryMatch(int u, int v) {
+        if (!lock(u)) {
+            return;
+        }
+        if (!lock(v)) {
+            mate.set(u, FREE);
+            return;
+        }
+        mate.set(v, u);
+        mate.set(u, v);
+    }
+
+    // Lock a free vertex, waiting out concurrent claims; returns false if the vertex ends up matched
+    private boolean lock(int v) {
+        while (true) {
+            int current = mate.get(v);
+            if (current == FREE) {
+                if (mate.compareAndSet(v, FREE, LOCKED)) {
+                    return true;
+                }
+            } else if (current == LOCKED) {
+                Thread.onSpinWait();
+            } else {
+                return false;
+            }
+        }
+    }
+
+    // Mate of v in the last computed matching, or -1 if v is free
+    public int mate(int v) {
+        return mate.get(v);
+    }
+
+    public IntMatching toIntMatching() {
+        IntMatching matching = new IntMatching(mate.length());
+        for (int u = 0; u < mate.length(); u++) {
+            int v = mate.get(u);
+            if (v > u) {
+                matching.add(u, v);
+            }
+        }
+        return matching;
+    }
+}
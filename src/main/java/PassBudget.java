@@ -0,0 +1,125 @@
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.BooleanSupplier;
+
+/* Limits on how long a multi-pass streaming algorithm may run before it returns the best matching found so far: a
+ * maximum number of passes over the stream, a maximum number of phases, a wall-clock time limit, a convergence
+ * limit on the number of consecutive phases that fail to grow the matching, and a cancellation flag polled between
+ * passes. Budgets are immutable; each with* method returns a copy with one limit changed. */
+public class PassBudget {
+    private static final PassBudget UNLIMITED = new PassBudget(Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, null);
+
+    private final long maxPasses;
+    private final long maxPhases;
+    private final long timeLimitNanos;
+    private final long maxStalledPhases;
+    private final BooleanSupplier cancelled; // null when the run cannot be cancelled
+
+    private PassBudget(long maxPasses, long maxPhases, long timeLimitNanos, long maxStalledPhases, BooleanSupplier cancelled) {
+        this.maxPasses = maxPasses;
+        this.maxPhases = maxPhases;
+        this.timeLimitNanos = timeLimitNanos;
+        this.maxStalledPhases = maxStalledPhases;
+        this.cancelled = cancelled;
+    }
+
+    public static PassBudget unlimited() {
+        return UNLIMITED;
+    }
+
+    public PassBudget withMaxPasses(long maxPasses) {
+        requirePositive(maxPasses, "passes");
+        return new PassBudget(maxPasses, maxPhases, timeLimitNanos, maxStalledPhases, cancelled);
+    }
+
+    public PassBudget withMaxPhases(long maxPhases) {
+        requirePositive(maxPhases, "phases");
+        return new PassBudget(maxPasses, maxPhases, timeLimitNanos, maxStalledPhases, cancelled);
+    }
+
+    public PassBudget withTimeLimit(Duration timeLimit) {
+        requirePositive(timeLimit.toNanos(), "nanoseconds");
+        return new PassBudget(maxPasses, maxPhases, timeLimit.toNanos(), maxStalledPhases, cancelled);
+    }
+
+    // Stop once this many consecutive phases have not increased the size of the matching
+    public PassBudget withMaxStalledPhases(long maxStalledPhases) {
+        requirePositive(maxStalledPhases, "stalled phases");
+        return new PassBudget(maxPasses, maxPhases, timeLimitNanos, maxStalledPhases, cancelled);
+    }
+
+    /* Stop as soon as cancelled returns true (or any flag given to an earlier withCancellation), e.g. AtomicBoolean::get
+     * for a flag set by a caller whose deadline has passed. Flags are polled before every pass and phase, so a run
+     * stops within one pass of its cancellation and returns the best matching found so far. */
+    public PassBudget withCancellation(BooleanSupplier cancelled) {
+        Objects.requireNonNull(cancelled);
+        BooleanSupplier previous = this.cancelled;
+        BooleanSupplier combined = (previous == null) ? cancelled
+                : () -> previous.getAsBoolean() || cancelled.getAsBoolean();
+        return new PassBudget(maxPasses, maxPhases, timeLimitNanos, maxStalledPhases, combined);
+    }
+
+    public long getMaxPasses() {
+        return maxPasses;
+    }
+
+    public long getMaxPhases() {
+        return maxPhases;
+    }
+
+    public long getMaxStalledPhases() {
+        return maxStalledPhases;
+    }
+
+    // Start tracking a run against this budget
+    public Tracker start() {
+        return new Tracker();
+    }
+
+    private static void requirePositive(long value, String what) {
+        if (value <= 0) {
+            throw new IllegalArgumentException("The budget must allow a positive number of " + what + ".");
+        }
+    }
+
+    // Tracks the passes, phases and elapsed time of a single run
+    public class Tracker {
+        private final long startNanos = System.nanoTime();
+        private long passes = 0;
+        private long phases = 0;
+        private long stalledPhases = 0;
+
+        public void recordPass() {
+            passes++;
+        }
+
+        // Record a completed phase and whether it increased the size of the matching
+        public void recordPhase(boolean improved) {
+            phases++;
+            stalledPhases = improved ? 0 : stalledPhases + 1;
+        }
+
+        public long getPasses() {
+            return passes;
+        }
+
+        public long getPhases() {
+            return phases;
+        }
+
+        public boolean isExhausted() {
+            return passes >= maxPasses || phases >= maxPhases || stalledPhases >= maxStalledPhases
+                    || (timeLimitNanos != Long.MAX_VALUE && System.nanoTime() - startNanos >= timeLimitNanos)
+                    || (cancelled != null && cancelled.getAsBoolean());
+        }
+    }
+
+    // Thrown to abandon the work in progress when a pass is requested after the budget of a run is exhausted
+    public static class ExhaustedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public ExhaustedException() {
+            super("The pass budget of the run is exhausted.", null, false, false);
+        }
+    }
+}
@@ -28,7 +28,7 @@ public class Performance {
         List<Double> epsValues = Arrays.asList(1.0/2, 2.0/5, 3.0/10, 2.0/10, 1.0/10, 1.0/20, 1.0/40, 1.0/80, 1.0/160); // values of eps to test
         for (double eps : epsValues) {
             long time1 = System.nanoTime();
-            ALT alt = new ALT(stream);
+            ALT alt = new ALT(stream, generator.getFirstPartition(), generator.getSecondPartition());
             Set<DefaultEdge> matching = alt.findApproximateMaxMatching(eps);
             long time2 = System.nanoTime();
             double seconds = (time2 - time1) / Math.pow(10, 9);
@@ -197,7 +197,7 @@ public class Performance {
             System.out.println("The length of the stream is " + stream.size());
             System.out.println("The actual max matching size is " + actualMaxMatching.getMatching().getEdges().size());
 
-            ALT alt = new ALT(stream);
+            ALT alt = new ALT(stream, generator.getFirstPartition(), generator.getSecondPartition());
             long time1 = System.nanoTime();
             Set<DefaultEdge> matching = alt.findApproximateMaxMatching(eps);
             long elapsedTime = System.nanoTime() - time1;
@@ -261,7 +261,7 @@ public class Performance {
             List<DefaultEdge> stream = new ArrayList<>(g.edgeSet());
             System.out.println("The length of the stream is " + stream.size());
 
-            ALT alt = new ALT(stream);
+            ALT alt = new ALT(stream, generator.getFirstPartition(), generator.getSecondPartition());
             long time1 = System.nanoTime();
             Set<DefaultEdge> matching = alt.findApproximateMaxMatching(eps);
             long elapsedTime = System.nanoTime() - time1;
@@ -274,11 +274,29 @@ public class Performance {
 
     }
 
+    // Let the planner pick the matcher for bipartite and general Erdos-Renyi graphs and report its plan
+    private static void testPlannerWithErdosRenyi() {
+        Pair<Graph<Integer, DefaultEdge>, GnpRandomBipartiteGraphGenerator<Integer, DefaultEdge>> pair = GraphUtils.generateRandomBipartiteGraph(10000, 0.0006, 42);
+        Graph<Integer, DefaultEdge> generalGraph = GraphUtils.generateRandomGraph(20000, 0.0003, 42);
+        for (Graph<Integer, DefaultEdge> g : Arrays.asList(pair.getValue0(), generalGraph)) {
+            DefaultEdgeStream stream = new DefaultEdgeStream(new ArrayList<>(g.edgeSet()));
+            for (double eps : Arrays.asList(1.0/2, 1.0/4, 1.0/10)) {
+                long startTime = System.nanoTime();
+                MatchingPlanner.Plan plan = MatchingPlanner.plan(stream, eps, PassBudget.unlimited().withMaxPasses(100000));
+                System.out.println("Plan for eps = " + eps + ": " + plan);
+                IntMatching matching = plan.execute();
+                System.out.println("The matching size is " + matching.size() + ", found in "
+                        + (System.nanoTime() - startTime) / 1000000 + " milliseconds");
+            }
+        }
+    }
+
     public static void main(String[] args) {
         // Uncomment the line corresponding to the desired performance test
         // testALTWithErdosRenyi();
         // testALTWithPlantedMatching();
         // testMcGregorWithErdosRenyi();
         // testMcGregorWithPlantedMatching();
+        // testPlannerWithErdosRenyi();
     }
 }
@@ -0,0 +1,10 @@
+/* A StreamingMatcher whose runs can publish their current matching after every round or phase and can be stopped
+ * early by a PassBudget, e.g. one with a time limit or a cancellation flag, returning the best matching so far.
+ * ProgressiveRun runs such a matcher in the background as a Flow.Publisher of its matchings. */
+public interface ProgressiveMatcher extends StreamingMatcher {
+    // Send the matching of every round or phase of subsequent runs to progress
+    void setProgress(MatchingProgress progress);
+
+    // Same as findApproximateIntMatching(eps), but stops with the best matching so far once the budget is exhausted
+    IntMatching findApproximateIntMatching(double eps, PassBudget budget);
+}
@@ -0,0 +1,104 @@
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/* A run of a ProgressiveMatcher in the background that publishes its current matching after every ALT round or
+ * McGregor phase, for callers that cannot wait for the end of a run with a small eps. Subscribers receive the
+ * matchings through the Flow API, followed by onComplete when the run returns (or onError if it fails); a subscriber
+ * that does not keep up misses matchings instead of slowing the run down, which is harmless since every matching is at
+ * least as large as the ones before it. Every subscriber receives the same IntMatching objects, which must not be
+ * modified.
+ *
+ * Cancellation is cooperative: cancel sets a flag that the run polls through its PassBudget before every pass, so it
+ * returns the best matching so far within one pass. getWithin(timeout) combines both for callers with a deadline: it
+ * waits for the result until the timeout, then cancels the run and takes the matching it returns. The matcher is
+ * owned by the run until it completes; its progress receiver is reset to MatchingProgress.NONE at the end. */
+public class ProgressiveRun implements Flow.Publisher<IntMatching> {
+    private final SubmissionPublisher<IntMatching> publisher;
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    private final CompletableFuture<IntMatching> result = new CompletableFuture<>();
+    private volatile IntMatching best; // last matching published, null before the end of the first round or phase
+
+    private ProgressiveRun(Executor executor) {
+        this.publisher = new SubmissionPublisher<>(executor, Flow.defaultBufferSize());
+    }
+
+    public static ProgressiveRun start(ProgressiveMatcher matcher, double eps) {
+        return start(matcher, eps, PassBudget.unlimited(), ForkJoinPool.commonPool());
+    }
+
+    // Start findApproximateIntMatching(eps, budget) on the executor, which also delivers the matchings to subscribers
+    public static ProgressiveRun start(ProgressiveMatcher matcher, double eps, PassBudget budget, Executor executor) {
+        ProgressiveRun run = new ProgressiveRun(executor);
+        PassBudget cancellable = budget.withCancellation(run.cancelled::get);
+        matcher.setProgress(run::publish);
+        executor.execute(() -> {
+            try {
+                IntMatching matching = matcher.findApproximateIntMatching(eps, cancellable);
+                run.best = matching;
+                run.result.complete(matching);
+                run.publisher.close();
+            } catch (RuntimeException | Error e) {
+                run.result.completeExceptionally(e);
+                run.publisher.closeExceptionally(e);
+            } finally {
+                matcher.setProgress(MatchingProgress.NONE);
+            }
+        });
+        return run;
+    }
+
+    private void publish(String algorithm, long round, IntMatching matching) {
+        best = matching;
+        publisher.offer(matching, (subscriber, dropped) -> false);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super IntMatching> subscriber) {
+        publisher.subscribe(Objects.requireNonNull(subscriber));
+    }
+
+    // Ask the run to stop before its next pass; it then completes with the best matching so far
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    // The last matching published, or the result once the run has completed; null before the first round or phase
+    public IntMatching getCurrentBest() {
+        return best;
+    }
+
+    // The matching the run returns, after its last round or phase or its cancellation
+    public CompletableFuture<IntMatching> getResult() {
+        return result;
+    }
+
+    // Wait up to timeout for the result, then cancel the run and wait for the matching it returns
+    public IntMatching getWithin(Duration timeout) {
+        try {
+            try {
+                return result.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                cancel();
+                return result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the result of a progressive run.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("The progressive run failed.", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,270 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/* Multiplexes the passes of several concurrent readers over a single physical scan of an edge stream. Each reader
+ * joins as a Participant and then requests passes from its own thread. A physical pass starts once every active
+ * participant is waiting for one, and its edges are broadcast in blocks to all of them, so k readers that each need a
+ * pass at the same point of their computation cost one read of the stream instead of k. A reader that is still busy
+ * computing holds back the next physical pass until it either requests a pass too or leaves.
+ *
+ * Blocks come from a fixed ring of RING_SIZE blocks, so a pass allocates nothing. A block goes back to the ring once
+ * every participant it was delivered to has moved past it or left. The slowest participant holds at most its queue
+ * and its current block, so with the block being filled by the reader the ring never runs dry before a delivery would
+ * block anyway. */
+public class SharedScan implements AutoCloseable {
+    private static final int BLOCK_SIZE = 4096;
+    private static final int QUEUE_CAPACITY = 4;
+    private static final int RING_SIZE = QUEUE_CAPACITY + 2;
+    private static final Block START = new Block(0, 0);
+    private static final Block END = new Block(0, 0);
+    private static final Block REFUSED = new Block(0, 0);
+
+    private final EdgeStream stream;
+    private final PassBudget.Tracker tracker; // charged one pass per physical scan
+    private final BlockingQueue<Block> free = new ArrayBlockingQueue<>(RING_SIZE); // blocks of the ring not in use
+    private final Object lock = new Object();
+    private final List<Participant> waiting = new ArrayList<>();
+    private int active = 0;
+    private boolean closed = false;
+    private final Thread reader;
+
+    public SharedScan(EdgeStream stream, PassBudget.Tracker tracker) {
+        this.stream = stream;
+        this.tracker = tracker;
+        for (int i = 0; i < RING_SIZE; i++) {
+            free.add(new Block(0, BLOCK_SIZE));
+        }
+        this.reader = new Thread(this::serve, "shared-scan");
+        this.reader.setDaemon(true);
+        this.reader.start();
+    }
+
+    // Register a new reader; call this before handing the participant to the thread that will use it
+    public Participant join() {
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("The shared scan has been closed.");
+            }
+            active++;
+            return new Participant();
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+    }
+
+    // Body of the reader thread: repeatedly wait for every active participant to request a pass, then serve it
+    private void serve() {
+        while (true) {
+            List<Participant> batch;
+            synchronized (lock) {
+                while (!closed && (waiting.isEmpty() || waiting.size() < active)) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (closed) {
+                    for (Participant participant : waiting) {
+                        participant.deliver(REFUSED);
+                    }
+                    waiting.clear();
+                    return;
+                }
+                batch = new ArrayList<>(waiting);
+                waiting.clear();
+            }
+            if (tracker.isExhausted()) {
+                for (Participant participant : batch) {
+                    participant.deliver(REFUSED);
+                }
+                continue;
+            }
+            tracker.recordPass();
+            for (Participant participant : batch) {
+                participant.deliver(START);
+            }
+            EdgeStream.Cursor cursor = stream.pass();
+            Block block = null;
+            while (cursor.next()) {
+                if (block == null) {
+                    try {
+                        block = free.take();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    block.start = cursor.position();
+                    block.length = 0;
+                }
+                block.sources[block.length] = cursor.source();
+                block.targets[block.length] = cursor.target();
+                block.length++;
+                if (block.length == BLOCK_SIZE) {
+                    broadcast(block, batch);
+                    block = null;
+                }
+            }
+            if (block != null) {
+                broadcast(block, batch);
+            }
+            for (Participant participant : batch) {
+                participant.deliver(END);
+            }
+        }
+    }
+
+    // Deliver a block of the ring to every participant of the batch, which share it read-only until they release it
+    private void broadcast(Block block, List<Participant> batch) {
+        block.readers.set(batch.size());
+        for (Participant participant : batch) {
+            participant.deliver(block);
+        }
+    }
+
+    // Called once by every participant a block was delivered to, when it no longer reads the block
+    private void release(Block block) {
+        if (block.readers != null && block.readers.decrementAndGet() == 0) {
+            free.add(block);
+        }
+    }
+
+    private static class Block {
+        private long start;
+        private final int[] sources;
+        private final int[] targets;
+        private int length = 0;
+        private final AtomicInteger readers; // participants still reading a block of the ring, null for markers
+
+        private Block(long start, int capacity) {
+            this.start = start;
+            this.sources = new int[capacity];
+            this.targets = new int[capacity];
+            this.readers = (capacity > 0) ? new AtomicInteger() : null;
+        }
+    }
+
+    // One reader of the shared scan. A participant must be used by a single thread at a time.
+    public class Participant {
+        private final BlockingQueue<Block> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private volatile boolean left = false;
+        private Block current; // the block the cursor of the pass in progress reads, until it moves past it
+
+        // Wait for the next physical pass and return a cursor over it; throws if the budget refuses the pass
+        public EdgeStream.Cursor pass() {
+            synchronized (lock) {
+                if (left) {
+                    throw new IllegalStateException("The participant has left the shared scan.");
+                }
+                waiting.add(this);
+                lock.notifyAll();
+            }
+            if (take() != START) {
+                throw new PassBudget.ExhaustedException();
+            }
+            return new SharedCursor();
+        }
+
+        // Stop taking part in the scan; passes no longer wait for this participant
+        public void leave() {
+            synchronized (lock) {
+                if (left) {
+                    return;
+                }
+                left = true;
+                active--;
+                waiting.remove(this);
+                lock.notifyAll();
+            }
+            if (current != null) {
+                release(current);
+                current = null;
+            }
+            drain();
+        }
+
+        // Release the blocks left in the queue of a participant that has left
+        private void drain() {
+            Block block;
+            while ((block = queue.poll()) != null) {
+                release(block);
+            }
+        }
+
+        private Block take() {
+            try {
+                return queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a shared pass.", e);
+            }
+        }
+
+        // Hand a block to this participant, dropping it if the participant leaves while the queue is full
+        private void deliver(Block block) {
+            boolean delivered = false;
+            try {
+                while (!left && !(delivered = queue.offer(block, 10, TimeUnit.MILLISECONDS))) {
+                    // keep waiting for the participant to catch up
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (!delivered) {
+                release(block);
+            } else if (left) {
+                drain(); // the participant left while the block was being queued
+            }
+        }
+
+        private class SharedCursor implements EdgeStream.Cursor {
+            private Block block;
+            private int index = 0;
+
+            @Override
+            public boolean next() {
+                if (block == END) {
+                    return false;
+                }
+                index++;
+                if (block == null || index >= block.length) {
+                    if (block != null) {
+                        release(block);
+                    }
+                    block = take();
+                    current = block;
+                    index = 0;
+                    if (block == END) {
+                        current = null;
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public int source() {
+                return block.sources[index];
+            }
+
+            @Override
+            public int target() {
+                return block.targets[index];
+            }
+
+            @Override
+            public long position() {
+                return block.start + index;
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+import org.jgrapht.graph.DefaultEdge;
+
+import java.util.Set;
+
+/* A multi-pass streaming algorithm for approximate maximum cardinality matching, constructed over an edge stream. The
+ * meaning of eps is that of the implementation (ALT returns a (1 - eps)-approximation, McGregor a 1/(1 + eps) one);
+ * MatchingPlanner translates a requested (1 - eps) guarantee into the eps of the matcher it picks. */
+public interface StreamingMatcher {
+    IntMatching findApproximateIntMatching(double eps);
+
+    // Same as findApproximateIntMatching, translated back into the DefaultEdges of the stream the matcher was
+    // constructed from
+    Set<DefaultEdge> findApproximateMaxMatching(double eps);
+}
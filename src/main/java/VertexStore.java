@@ -0,0 +1,139 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+
+/* Where ALT keeps the state of its auction (prices, owners, allocations and demands of the bidders and items), and
+ * McGregor the state of its layer graphs (labels, sets, Gamma and tags). HEAP keeps it in Java arrays, which the heap
+ * auction and layer graph index directly. OFF_HEAP keeps it outside the Java heap in direct ByteBuffers of at most 2^27
+ * elements each, through IntArray and DoubleArray, so that the O(n) working set of a run on a very large graph is never
+ * scanned or copied by the garbage collector. Each store has its own auction class in ALT and layer graph class in
+ * McGregor, so the passes of heap runs never go through these arrays, and never share compiled code with off-heap
+ * runs. The memory of an off-heap array is released when the array becomes unreachable. */
+public class VertexStore {
+    public static final VertexStore HEAP = new VertexStore(false, 0);
+    public static final VertexStore OFF_HEAP = new VertexStore(true, 27);
+
+    private final boolean offHeap;
+    private final int chunkShift;
+
+    private VertexStore(boolean offHeap, int chunkShift) {
+        this.offHeap = offHeap;
+        this.chunkShift = chunkShift;
+    }
+
+    // Off-heap store with chunks of 2^chunkShift elements, to exercise chunk boundaries on small arrays
+    static VertexStore offHeap(int chunkShift) {
+        return new VertexStore(true, chunkShift);
+    }
+
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    // An off-heap array of length ints, all 0; heap state is held in plain Java arrays instead
+    public IntArray newIntArray(int length) {
+        ByteBuffer[] buffers = allocate(length, Integer.BYTES);
+        IntBuffer[] chunks = new IntBuffer[buffers.length];
+        for (int c = 0; c < buffers.length; c++) {
+            chunks[c] = buffers[c].asIntBuffer();
+        }
+        return new IntArray(length, chunks, chunkShift);
+    }
+
+    public DoubleArray newDoubleArray(int length) {
+        ByteBuffer[] buffers = allocate(length, Double.BYTES);
+        DoubleBuffer[] chunks = new DoubleBuffer[buffers.length];
+        for (int c = 0; c < buffers.length; c++) {
+            chunks[c] = buffers[c].asDoubleBuffer();
+        }
+        return new DoubleArray(length, chunks, chunkShift);
+    }
+
+    // Allocate the direct chunks of an array of length elements of elementBytes bytes each, in native byte order
+    private ByteBuffer[] allocate(int length, int elementBytes) {
+        if (!offHeap) {
+            throw new IllegalStateException("The heap store holds its state in Java arrays.");
+        }
+        if (length < 0) {
+            throw new IllegalArgumentException("Array length must be non-negative.");
+        }
+        int chunkLength = 1 << chunkShift;
+        ByteBuffer[] chunks = new ByteBuffer[(int) ((length + (long) chunkLength - 1) >>> chunkShift)];
+        for (int c = 0; c < chunks.length; c++) {
+            int elements = Math.min(chunkLength, length - c * chunkLength);
+            chunks[c] = ByteBuffer.allocateDirect(elements * elementBytes).order(ByteOrder.nativeOrder());
+        }
+        return chunks;
+    }
+
+    // An off-heap array of ints, indexed like a Java array
+    public static final class IntArray {
+        private final int length;
+        private final IntBuffer[] chunks;
+        private final int shift;
+        private final int mask;
+
+        private IntArray(int length, IntBuffer[] chunks, int shift) {
+            this.length = length;
+            this.chunks = chunks;
+            this.shift = shift;
+            this.mask = (1 << shift) - 1;
+        }
+
+        public int length() {
+            return length;
+        }
+
+        public int get(int i) {
+            return chunks[i >>> shift].get(i & mask);
+        }
+
+        public void set(int i, int value) {
+            chunks[i >>> shift].put(i & mask, value);
+        }
+
+        public void fill(int value) {
+            for (IntBuffer chunk : chunks) {
+                for (int i = 0; i < chunk.capacity(); i++) {
+                    chunk.put(i, value);
+                }
+            }
+        }
+    }
+
+    // An off-heap array of doubles, organized like IntArray
+    public static final class DoubleArray {
+        private final int length;
+        private final DoubleBuffer[] chunks;
+        private final int shift;
+        private final int mask;
+
+        private DoubleArray(int length, DoubleBuffer[] chunks, int shift) {
+            this.length = length;
+            this.chunks = chunks;
+            this.shift = shift;
+            this.mask = (1 << shift) - 1;
+        }
+
+        public int length() {
+            return length;
+        }
+
+        public double get(int i) {
+            return chunks[i >>> shift].get(i & mask);
+        }
+
+        public void set(int i, double value) {
+            chunks[i >>> shift].put(i & mask, value);
+        }
+
+        public void fill(double value) {
+            for (DoubleBuffer chunk : chunks) {
+                for (int i = 0; i < chunk.capacity(); i++) {
+                    chunk.put(i, value);
+                }
+            }
+        }
+    }
+}
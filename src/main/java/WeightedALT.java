@@ -0,0 +1,109 @@
+import org.jgrapht.graph.DefaultEdge;
+
+import java.util.BitSet;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+/* Weighted variant of the ALT auction, for assignment problems where each bidder values its items differently. The
+ * value of an edge is its weight in the EdgeWeights of the stream, and the cost of an item to a bidder is the item's
+ * price minus the value. Each round, run by an ALT whose auction is weighted (see ALT.setWeights), computes the minimum
+ * cost of every bidder, then greedily matches unallocated bidders to items of minimum and negative cost and raises
+ * the prices of those items by eps times the largest weight W, up to W. A run is capped at ALT's ceil(2/eps^2) rounds;
+ * the tests check that its matching is within eps * W per matched edge of a maximum-weight matching. */
+public class WeightedALT {
+    private final ALT alt;
+    private final DefaultEdgeStream edges; // null unless the stream is a DefaultEdgeStream
+    private double matchingWeight = 0; // weight of the matching returned by the last run
+
+    public WeightedALT(EdgeWeights weights) {
+        this(weights, Bipartition.detect(weights.stream()));
+    }
+
+    // Same as WeightedALT(weights) for a List<DefaultEdge> whose sides are given as sets of vertex labels
+    public WeightedALT(EdgeWeights weights, Set<Integer> bidders, Set<Integer> items) {
+        this(weights, labelBipartition(weights.stream(), bidders, items));
+    }
+
+    // Auction over a bipartition that is already known, its left side being the bidders and its right side the items
+    public WeightedALT(EdgeWeights weights, Bipartition bipartition) {
+        this(weights, bipartition, VertexStore.HEAP);
+    }
+
+    // Same as WeightedALT(weights, bipartition), with the auction state allocated in the given store
+    public WeightedALT(EdgeWeights weights, Bipartition bipartition, VertexStore store) {
+        if (bipartition == null) {
+            throw new IllegalArgumentException("Argument to WeightedALT must be an edge stream of a bipartite graph.");
+        }
+        if (bipartition.vertexCount() != weights.stream().vertexCount()) {
+            throw new IllegalArgumentException("The bipartition must cover the " + weights.stream().vertexCount() + " vertices of the stream.");
+        }
+        EdgeStream stream = weights.stream();
+        this.edges = (stream instanceof DefaultEdgeStream) ? (DefaultEdgeStream) stream : null;
+        this.alt = new ALT(stream, bipartition, store);
+        alt.setWeights(weights);
+    }
+
+    private static Bipartition labelBipartition(EdgeStream stream, Set<Integer> bidders, Set<Integer> items) {
+        if (!(stream instanceof DefaultEdgeStream)) {
+            throw new IllegalArgumentException("Sides given as vertex labels require the weights of a DefaultEdgeStream.");
+        }
+        DefaultEdgeStream labelled = (DefaultEdgeStream) stream;
+        BitSet left = new BitSet(stream.vertexCount());
+        BitSet right = new BitSet(stream.vertexCount());
+        for (int v = 0; v < stream.vertexCount(); v++) {
+            left.set(v, bidders.contains(labelled.label(v)));
+            right.set(v, items.contains(labelled.label(v)));
+        }
+        return Bipartition.of(stream.vertexCount(), left, right);
+    }
+
+    // Compute the demands of each round in parallel over numShards shards of the stream, as ALT.setParallelism does
+    public void setParallelism(ForkJoinPool pool, int numShards) {
+        alt.setParallelism(pool, numShards);
+    }
+
+    // Report the passes, rounds and vertex-state memory of every subsequent run to listener, as algorithm "WeightedALT"
+    public void setListener(MatchingListener listener) {
+        alt.setListener(listener);
+    }
+
+    /* Stop the auction once the weight of the allocation is within a factor 1 - eps of the weighted dual bound, the sum
+     * of the prices and of the bidders' best utilities, as ALT.setQualityTarget does for sizes */
+    public void setQualityTarget(boolean enabled) {
+        alt.setQualityTarget(enabled);
+    }
+
+    // Number of rounds run by the last run: at most ceil(2/eps^2), fewer if it converged or met its quality target
+    public int getRoundCount() {
+        return alt.getRoundCount();
+    }
+
+    // Total weight of the matching returned by the last run
+    public double getMatchingWeight() {
+        return matchingWeight;
+    }
+
+    // Run the auction and translate the result back into the DefaultEdges of the stream
+    public Set<DefaultEdge> findApproximateMaxMatching(double eps) {
+        if (edges == null) {
+            throw new IllegalStateException("findApproximateMaxMatching requires the weights of a DefaultEdgeStream; use findApproximateIntMatching instead.");
+        }
+        return edges.toEdgeSet(findApproximateIntMatching(eps));
+    }
+
+    public IntMatching findApproximateIntMatching(double eps) {
+        return findApproximateIntMatching(eps, PassBudget.unlimited());
+    }
+
+    /* Same as findApproximateIntMatching(eps), but stops before the next pass once the budget is exhausted and
+     * returns the current allocation, which has no guarantee if the auction was cut short */
+    public IntMatching findApproximateIntMatching(double eps, PassBudget budget) {
+        if (eps <= 0 || eps >= 1) {
+            throw new IllegalArgumentException("Argument to findApproximateMatching must be a real number strictly between 0 and 1");
+        }
+        ALT.Auction auction = alt.newAuction();
+        IntMatching matching = alt.run(auction, eps, (int) Math.ceil(2 / (eps * eps)), budget);
+        matchingWeight = auction.matchingWeight();
+        return matching;
+    }
+}
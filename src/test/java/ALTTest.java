@@ -64,6 +64,141 @@ class ALTTest {
         }
 
     }
-}
 
+    @Test
+    void testParallelDemandsAreDeterministic() {
+        Pair<Graph<Integer, DefaultEdge>, GnpRandomBipartiteGraphGenerator<Integer, DefaultEdge>> randomGraphPair = GraphUtils.generateRandomBipartiteGraph(500, 0.01, 42);
+        List<DefaultEdge> stream = new ArrayList<>(randomGraphPair.getValue0().edgeSet());
+        double eps = 1.0 / 5;
+        Set<DefaultEdge> sequentialMatching = new ALT(stream).findApproximateMaxMatching(eps);
+        for (int numShards : Arrays.asList(1, 3, 8)) {
+            ALT alt = new ALT(stream);
+            alt.setParallelism(numShards);
+            assertEquals(sequentialMatching, alt.findApproximateMaxMatching(eps));
+        }
+    }
+
+    @Test
+    void testListenerReportsPassesAndRounds() {
+        Pair<Graph<Integer, DefaultEdge>, GnpRandomBipartiteGraphGenerator<Integer, DefaultEdge>> pair = GraphUtils.generateRandomBipartiteGraph(500, 0.01, 42);
+        List<DefaultEdge> stream = new ArrayList<>(pair.getValue0().edgeSet());
+        double eps = 1.0 / 3;
+        for (int numShards : Arrays.asList(0, 4)) {
+            ALT alt = new ALT(stream);
+            if (numShards > 0) {
+                alt.setParallelism(numShards);
+            }
+            MatchingMetrics metrics = new MatchingMetrics();
+            alt.setListener(metrics);
+            Set<DefaultEdge> matching = alt.findApproximateMaxMatching(eps);
+            int rounds = alt.getRoundCount();
+            assertEquals(2L * rounds, metrics.getPasses()); // one demand pass and one allocation pass per round
+            assertEquals(metrics.getPasses() * stream.size(), metrics.getEdgesScanned());
+            List<Integer> sizes = metrics.getRoundMatchingSizes();
+            assertEquals(rounds, sizes.size());
+            for (int i = 1; i < sizes.size(); i++) {
+                assertTrue(sizes.get(i) >= sizes.get(i - 1)); // allocated items are never released
+            }
+            assertEquals(matching.size(), sizes.get(sizes.size() - 1));
+            assertTrue(metrics.getPeakVertexStateBytes() > 0);
+        }
+    }
+
+    @Test
+    void testExplicitBipartition() {
+        Pair<Graph<Integer, DefaultEdge>, GnpRandomBipartiteGraphGenerator<Integer, DefaultEdge>> pair = GraphUtils.generateRandomBipartiteGraph(500, 0.01, 42);
+        Graph<Integer, DefaultEdge> graph = pair.getValue0();
+        Set<Integer> firstPartition = pair.getValue1().getFirstPartition();
+        Set<Integer> secondPartition = pair.getValue1().getSecondPartition();
+        // Renumber the vertices so that the first partition lies below the split point
+        List<Integer> order = new ArrayList<>(firstPartition);
+        order.addAll(secondPartition);
+        Map<Integer, Integer> ids = new HashMap<>();
+        for (int v : order) {
+            ids.put(v, ids.size());
+        }
+        ArrayEdgeStream.Builder builder = new ArrayEdgeStream.Builder();
+        for (DefaultEdge edge : graph.edgeSet()) {
+            builder.addEdge(ids.get(graph.getEdgeSource(edge)), ids.get(graph.getEdgeTarget(edge)));
+        }
+        ArrayEdgeStream stream = builder.build();
+        BitSet left = new BitSet();
+        left.set(0, firstPartition.size());
+        BitSet right = new BitSet();
+        right.set(firstPartition.size(), stream.vertexCount());
+        double eps = 1.0 / 3;
+        IntMatching splitMatching = new ALT(stream, Bipartition.split(stream.vertexCount(), firstPartition.size())).findApproximateIntMatching(eps);
+        IntMatching setMatching = new ALT(stream, Bipartition.of(stream.vertexCount(), left, right)).findApproximateIntMatching(eps);
+        for (int v = 0; v < stream.vertexCount(); v++) {
+            assertEquals(setMatching.mate(v), splitMatching.mate(v));
+        }
+        List<DefaultEdge> edges = new ArrayList<>(graph.edgeSet());
+        Set<DefaultEdge> matching = new ALT(edges, firstPartition, secondPartition).findApproximateMaxMatching(eps);
+        GraphUtils.isMatching(matching, graph.edgeSet());
+        int maxMatchingSize = new HopcroftKarpMaximumCardinalityBipartiteMatching<>(graph, firstPartition, secondPartition).getMatching().getEdges().size();
+        assertTrue(matching.size() >= (1 - eps) * maxMatchingSize);
+        assertThrows(IllegalArgumentException.class, () -> new ALT(stream, Bipartition.split(stream.vertexCount() + 1, 0)));
+    }
+
+    @Test
+    void testEdgesThatBreakTheBipartitionAreRejected() {
+        // Vertices 0 and 1 are bidders and 2 and 3 items; the third edge joins the two bidders, the fourth the two items
+        int[][] badEdges = {{0, 1}, {3, 2}};
+        for (int[] badEdge : badEdges) {
+            ArrayEdgeStream stream = new ArrayEdgeStream.Builder().addEdge(0, 2).addEdge(1, 3)
+                    .addEdge(badEdge[0], badEdge[1]).build();
+            BitSet left = new BitSet();
+            left.set(0, 2);
+            BitSet right = new BitSet();
+            right.set(2, 4);
+            List<ALT> alts = new ArrayList<>();
+            alts.add(new ALT(stream, Bipartition.split(4, 2)));
+            alts.add(new ALT(stream, Bipartition.of(4, left, right)));
+            alts.add(new ALT(stream, Bipartition.split(4, 2), VertexStore.offHeap(4)));
+            ALT parallel = new ALT(stream, Bipartition.split(4, 2));
+            parallel.setParallelism(2);
+            alts.add(parallel);
+            ALT weighted = new ALT(stream, Bipartition.of(4, left, right));
+            weighted.setWeights(new EdgeWeights(stream, new double[] {1, 2, 3}));
+            alts.add(weighted);
+            for (ALT alt : alts) {
+                IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> alt.findApproximateIntMatching(0.5));
+                // The pool of a parallel run rethrows the exception of a shard with the original as its cause
+                assertTrue(e.getMessage().contains("Edge {" + badEdge[0] + ", " + badEdge[1] + "} does not join the two sides"));
+            }
+        }
+        // Sides given as vertex labels: vertex 5 is in neither of them
+        Graph<Integer, DefaultEdge> graph = new SimpleGraph<>(DefaultEdge.class);
+        for (int v = 0; v < 6; v++) {
+            graph.addVertex(v);
+        }
+        graph.addEdge(0, 2);
+        graph.addEdge(1, 5);
+        ALT alt = new ALT(new ArrayList<>(graph.edgeSet()), Set.of(0, 1), Set.of(2, 3));
+        assertThrows(IllegalArgumentException.class, () -> alt.findApproximateMaxMatching(0.5));
+    }
+
+    @Test
+    void testAuctionStopsEarly() {
+        // On a perfect matching every bidder is allocated in the first round and the second round allocates nothing
+        ArrayEdgeStream.Builder builder = new ArrayEdgeStream.Builder();
+        for (int v = 0; v < 100; v++) {
+            builder.addEdge(v, 100 + v);
+        }
+        ALT perfect = new ALT(builder.build());
+        assertEquals(100, perfect.findApproximateIntMatching(0.1).size());
+        assertEquals(2, perfect.getRoundCount());
 
+        Pair<Graph<Integer, DefaultEdge>, GnpRandomBipartiteGraphGenerator<Integer, DefaultEdge>> pair = GraphUtils.generateRandomBipartiteGraph(1000, 0.005, 42);
+        Graph<Integer, DefaultEdge> graph = pair.getValue0();
+        int maxMatchingSize = new HopcroftKarpMaximumCardinalityBipartiteMatching<>(graph, pair.getValue1().getFirstPartition(), pair.getValue1().getSecondPartition()).getMatching().getEdges().size();
+        ALT alt = new ALT(new ArrayList<>(graph.edgeSet()));
+        alt.setQualityTarget(true);
+        for (double eps : Arrays.asList(1.0/2, 1.0/5, 1.0/10)) {
+            Set<DefaultEdge> matching = alt.findApproximateMaxMatching(eps);
+            GraphUtils.isMatching(matching, graph.edgeSet());
+            assertTrue(matching.size() >= (1 - eps) * maxMatchingSize);
+            assertTrue(alt.getRoundCount() < Math.ceil(2 / (eps * eps)));
+        }
+    }
+}
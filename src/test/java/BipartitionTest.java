@@ -0,0 +1,54 @@
+import org.javatuples.Pair;
+import org.jgrapht.Graph;
+import org.jgrapht.generate.GnpRandomBipartiteGraphGenerator;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BipartitionTest {
+    @Test
+    void testDetectSeparatesEveryEdge() {
+        Pair<Graph<Integer, DefaultEdge>, GnpRandomBipartiteGraphGenerator<Integer, DefaultEdge>> pair = GraphUtils.generateRandomBipartiteGraph(500, 0.01, 42);
+        List<DefaultEdge> edges = new ArrayList<>(pair.getValue0().edgeSet());
+        Collections.shuffle(edges, new Random(42)); // the result must not depend on the order of the edges
+        DefaultEdgeStream stream = new DefaultEdgeStream(edges);
+        Bipartition bipartition = Bipartition.detect(stream);
+        assertNotNull(bipartition);
+        EdgeStream.Cursor cursor = stream.pass();
+        while (cursor.next()) {
+            assertNotEquals(Bipartition.NONE, bipartition.side(cursor.source()));
+            assertNotEquals(bipartition.side(cursor.source()), bipartition.side(cursor.target()));
+        }
+        assertEquals(stream.vertexCount(), bipartition.leftCount() + bipartition.rightCount());
+    }
+
+    @Test
+    void testDetectRejectsOddCycles() {
+        // An even cycle whose edges arrive so that its two halves are only joined by the last edge
+        ArrayEdgeStream evenCycle = new ArrayEdgeStream.Builder()
+                .addEdge(0, 1).addEdge(2, 3).addEdge(1, 2).addEdge(4, 5).addEdge(3, 4).addEdge(5, 0)
+                .build();
+        Bipartition bipartition = Bipartition.detect(evenCycle);
+        assertNotNull(bipartition);
+        assertEquals(3, bipartition.leftCount());
+        assertEquals(3, bipartition.rightCount());
+        ArrayEdgeStream oddCycle = new ArrayEdgeStream.Builder()
+                .addEdge(0, 1).addEdge(2, 3).addEdge(1, 2).addEdge(3, 4).addEdge(4, 0)
+                .build();
+        assertNull(Bipartition.detect(oddCycle));
+        assertNull(Bipartition.detect(new ArrayEdgeStream.Builder().addEdge(1, 2).addEdge(3, 3).build()));
+    }
+
+    @Test
+    void testVerticesWithoutEdgesHaveNoSide() {
+        ArrayEdgeStream stream = new ArrayEdgeStream.Builder().addEdge(1, 4).build();
+        Bipartition bipartition = Bipartition.detect(stream);
+        assertEquals(Bipartition.NONE, bipartition.side(0));
+        assertEquals(Bipartition.NONE, bipartition.side(2));
+        assertTrue(bipartition.isLeft(1) != bipartition.isLeft(4));
+        assertEquals(1, bipartition.leftCount());
+    }
+}
@@ -0,0 +1,195 @@
+import org.javatuples.Pair;
+import org.jgrapht.Graph;
+import org.jgrapht.generate.GnpRandomBipartiteGraphGenerator;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressedEdgeStreamTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testRoundTripAcrossBlocks() throws IOException {
+        Pair<Graph<Integer, DefaultEdge>, GnpRandomBipartiteGraphGenerator<Integer, DefaultEdge>> pair = GraphUtils.generateRandomBipartiteGraph(300, 0.01, 42);
+        DefaultEdgeStream original = new DefaultEdgeStream(new ArrayList<>(pair.getValue0().edgeSet()));
+        // The file streams the edges sorted by source and then by target
+        int n = (int) original.size();
+        long[] packed = new long[n];
+        EdgeStream.Cursor cursor = original.pass();
+        for (int e = 0; cursor.next(); e++) {
+            packed[e] = ((long) cursor.source() << 32) | cursor.target();
+        }
+        Arrays.sort(packed);
+        int[] sources = new int[n];
+        int[] targets = new int[n];
+        for (int e = 0; e < n; e++) {
+            sources[e] = (int) (packed[e] >>> 32);
+            targets[e] = (int) packed[e];
+        }
+        ArrayEdgeStream sorted = new ArrayEdgeStream(sources, targets, original.vertexCount());
+
+        Path file = tempDir.resolve("graph.edgz");
+        CompressedEdgeStream.write(original, file, 7); // force passes to cross block boundaries
+        for (boolean prefetch : new boolean[]{true, false}) {
+            try (CompressedEdgeStream compressed = CompressedEdgeStream.open(file, prefetch)) {
+                assertEquals(original.size(), compressed.size());
+                assertEquals(original.vertexCount(), compressed.vertexCount());
+                for (long from : new long[]{0, 6, 7, 13}) {
+                    for (long to : new long[]{from, from + 1, 21, compressed.size()}) {
+                        EdgeStream.Cursor expected = sorted.pass(from, to);
+                        EdgeStream.Cursor actual = compressed.pass(from, to);
+                        while (expected.next()) {
+                            assertTrue(actual.next());
+                            assertEquals(expected.position(), actual.position());
+                            assertEquals(expected.source(), actual.source());
+                            assertEquals(expected.target(), actual.target());
+                        }
+                        assertFalse(actual.next());
+                    }
+                }
+                // The algorithms see the same stream and therefore compute the same matching
+                double eps = 1.0 / 3;
+                IntMatching fromMemory = new ALT(sorted).findApproximateIntMatching(eps);
+                IntMatching fromFile = new ALT(compressed).findApproximateIntMatching(eps);
+                for (int v = 0; v < original.vertexCount(); v++) {
+                    assertEquals(fromMemory.mate(v), fromFile.mate(v));
+                }
+            }
+        }
+        // With the default block size, a pass reads at least 3 times fewer bytes than from a MappedEdgeStream file
+        Path large = tempDir.resolve("graph-large.edgz");
+        CompressedEdgeStream.write(original, large);
+        try (CompressedEdgeStream compressed = CompressedEdgeStream.open(large)) {
+            assertEquals(Files.size(large), CompressedEdgeStream.HEADER_BYTES + compressed.encodedBytes() + 16);
+            assertTrue(3 * compressed.encodedBytes() <= original.size() * MappedEdgeStream.EDGE_BYTES);
+        }
+    }
+
+    @Test
+    void testRejectsUnsortedEdgesAndMalformedFiles() throws IOException {
+        Path file = tempDir.resolve("unsorted.edgz");
+        try (CompressedEdgeStream.Writer writer = new CompressedEdgeStream.Writer(file, 4)) {
+            writer.addEdge(1, 2);
+            writer.addEdge(1, 2);
+            assertThrows(IllegalArgumentException.class, () -> writer.addEdge(1, 0));
+            assertThrows(IllegalArgumentException.class, () -> writer.addEdge(0, 3));
+            assertThrows(IllegalArgumentException.class, () -> writer.addEdge(2, 4));
+        }
+        try (CompressedEdgeStream stream = CompressedEdgeStream.open(file)) {
+            assertEquals(2, stream.size());
+        }
+        Path notEdges = tempDir.resolve("not-edges.bin");
+        Files.write(notEdges, new byte[]{1, 2, 3});
+        assertThrows(IOException.class, () -> CompressedEdgeStream.open(notEdges));
+        Path empty = tempDir.resolve("empty.edgz");
+        new CompressedEdgeStream.Writer(empty, 0).close();
+        try (CompressedEdgeStream stream = CompressedEdgeStream.open(empty)) {
+            assertEquals(0, stream.size());
+            assertFalse(stream.pass().next());
+        }
+    }
+
+    @Test
+    void testRejectsCorruptHeadersAndBlockIndexesAtOpen() throws IOException {
+        Path file = tempDir.resolve("blocks.edgz");
+        try (CompressedEdgeStream.Writer writer = new CompressedEdgeStream.Writer(file, 20, 4)) {
+            for (int e = 0; e < 10; e++) {
+                writer.addEdge(e, e + 10);
+            }
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        ByteBuffer header = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        int indexOffset = (int) header.getLong(24);
+        int maxBlockBytes = header.getInt(32);
+        try (CompressedEdgeStream stream = CompressedEdgeStream.open(file)) {
+            assertEquals(10, stream.size());
+        }
+        // maxBlockBytes must be non-negative, and no more than a block of 4 edges can take
+        assertCorrupt(bytes, b -> b.putInt(32, -1), "corrupt header");
+        assertCorrupt(bytes, b -> b.putInt(32, Integer.MAX_VALUE), "corrupt header");
+        // Every block must span at most maxBlockBytes bytes
+        assertCorrupt(bytes, b -> b.putInt(32, 1), "block 0 spans");
+        // Offsets must increase, start after the header and end at the index
+        assertCorrupt(bytes, b -> b.putLong(indexOffset + 16, b.getLong(indexOffset + 8)), "block 1 spans 0");
+        assertCorrupt(bytes, b -> b.putLong(indexOffset + 16, b.getLong(indexOffset)), "block 1 spans -");
+        assertCorrupt(bytes, b -> b.putLong(indexOffset, CompressedEdgeStream.HEADER_BYTES - 8), "of block 0 is outside");
+        assertCorrupt(bytes, b -> b.putLong(indexOffset + 24, indexOffset - 1), "instead of the index offset");
+        assertCorrupt(bytes, b -> b.putLong(indexOffset + 8, indexOffset + maxBlockBytes), "of block 1 is outside");
+    }
+
+    @Test
+    void testCorruptBlocksFailThePassWithAnIOException() throws IOException {
+        Path file = tempDir.resolve("flips.edgz");
+        Random random = new Random(42);
+        try (CompressedEdgeStream.Writer writer = new CompressedEdgeStream.Writer(file, 50, 8)) {
+            for (int source = 0; source < 50; source += 1 + random.nextInt(3)) {
+                for (int target = random.nextInt(5); target < 50; target += 1 + random.nextInt(20)) {
+                    writer.addEdge(source, target);
+                }
+            }
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        int indexOffset = (int) ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).getLong(24);
+        Path corrupt = tempDir.resolve("flipped.edgz");
+        // A byte of the first block that no valid block has: a run count of 0
+        byte[] copy = bytes.clone();
+        copy[CompressedEdgeStream.HEADER_BYTES] = 0;
+        Files.write(corrupt, copy);
+        for (boolean prefetch : new boolean[]{true, false}) {
+            try (CompressedEdgeStream stream = CompressedEdgeStream.open(corrupt, prefetch)) {
+                UncheckedIOException e = assertThrows(UncheckedIOException.class, () -> drain(stream));
+                assertTrue(e.getMessage().contains("is corrupt in block 0"), e.getMessage());
+            }
+        }
+        // Any change to any byte of any block either still decodes to edges over the vertices or fails the pass with an
+        // IOException, on the prefetch thread as well as on the thread of the pass
+        int failures = 0;
+        for (int offset = CompressedEdgeStream.HEADER_BYTES; offset < indexOffset; offset++) {
+            for (int mask : new int[]{0x01, 0x40, 0x80, 0xFF}) {
+                copy = bytes.clone();
+                copy[offset] ^= (byte) mask;
+                Files.write(corrupt, copy);
+                for (boolean prefetch : new boolean[]{true, false}) {
+                    try (CompressedEdgeStream stream = CompressedEdgeStream.open(corrupt, prefetch)) {
+                        drain(stream);
+                    } catch (UncheckedIOException e) {
+                        assertTrue(e.getMessage().contains(" is corrupt in block "), e.getMessage());
+                        failures++;
+                    }
+                }
+            }
+        }
+        assertTrue(failures > 0);
+    }
+
+    // Read every edge of stream, checking that its endpoints are vertices of the stream
+    private static void drain(EdgeStream stream) {
+        EdgeStream.Cursor cursor = stream.pass();
+        while (cursor.next()) {
+            assertTrue(cursor.source() >= 0 && cursor.source() < stream.vertexCount());
+            assertTrue(cursor.target() >= 0 && cursor.target() < stream.vertexCount());
+        }
+    }
+
+    // Write a copy of bytes modified by corruption and check that opening it fails with a message containing expected
+    private void assertCorrupt(byte[] bytes, Consumer<ByteBuffer> corruption, String expected) throws IOException {
+        byte[] copy = bytes.clone();
+        corruption.accept(ByteBuffer.wrap(copy).order(ByteOrder.LITTLE_ENDIAN));
+        Path corrupt = tempDir.resolve("corrupt.edgz");
+        Files.write(corrupt, copy);
+        IOException e = assertThrows(IOException.class, () -> CompressedEdgeStream.open(corrupt).close());
+        assertTrue(e.getMessage().contains(expected), e.getMessage());
+    }
+}
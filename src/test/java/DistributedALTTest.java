@@ -0,0 +1,113 @@
+import org.javatuples.Pair;
+import org.jgrapht.Graph;
+import org.jgrapht.alg.matching.HopcroftKarpMaximumCardinalityBipartiteMatching;
+import org.jgrapht.generate.GnpRandomBipartiteGraphGenerator;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DistributedALTTest {
+    @Test
+    void testShardedAuctionIsApproximateMatching() {
+        Pair<Graph<Integer, DefaultEdge>, GnpRandomBipartiteGraphGenerator<Integer, DefaultEdge>> pair = GraphUtils.generateRandomBipartiteGraph(500, 0.01, 42);
+        Graph<Integer, DefaultEdge> graph = pair.getValue0();
+        int maxMatchingSize = new HopcroftKarpMaximumCardinalityBipartiteMatching<>(graph, pair.getValue1().getFirstPartition(), pair.getValue1().getSecondPartition()).getMatching().getEdges().size();
+        DefaultEdgeStream stream = new DefaultEdgeStream(new ArrayList<>(graph.edgeSet()));
+        Bipartition bipartition = Bipartition.detect(stream);
+        double eps = 1.0 / 5;
+        // A single worker over the whole stream runs exactly the sequential auction
+        IntMatching sequential = new ALT(stream, bipartition).findApproximateIntMatching(eps);
+        DistributedALT single = DistributedALT.inProcess(stream, bipartition, 1);
+        IntMatching distributed = single.findApproximateIntMatching(eps);
+        for (int v = 0; v < stream.vertexCount(); v++) {
+            assertEquals(sequential.mate(v), distributed.mate(v));
+        }
+        for (int numWorkers : Arrays.asList(2, 5)) {
+            DistributedALT alt = DistributedALT.inProcess(stream, bipartition, numWorkers);
+            Set<DefaultEdge> matching = stream.toEdgeSet(alt.findApproximateIntMatching(eps));
+            GraphUtils.isMatching(matching, graph.edgeSet());
+            assertTrue(matching.size() >= (1 - eps) * maxMatchingSize);
+            assertTrue(alt.getRoundCount() <= Math.ceil(2 / (eps * eps)));
+            assertTrue(alt.getExchangeCount() >= 2L * alt.getRoundCount());
+        }
+    }
+
+    @Test
+    void testRepeatedRunsStartFromZeroPrices() {
+        Pair<Graph<Integer, DefaultEdge>, GnpRandomBipartiteGraphGenerator<Integer, DefaultEdge>> pair = GraphUtils.generateRandomBipartiteGraph(400, 0.01, 3);
+        DefaultEdgeStream stream = new DefaultEdgeStream(new ArrayList<>(pair.getValue0().edgeSet()));
+        Bipartition bipartition = Bipartition.detect(stream);
+        double eps = 1.0 / 4;
+        IntMatching sequential = new ALT(stream, bipartition).findApproximateIntMatching(eps);
+        assertTrue(sequential.size() > 0);
+        DistributedALT single = DistributedALT.inProcess(stream, bipartition, 1);
+        for (int run = 0; run < 2; run++) {
+            IntMatching distributed = single.findApproximateIntMatching(eps);
+            for (int v = 0; v < stream.vertexCount(); v++) {
+                assertEquals(sequential.mate(v), distributed.mate(v));
+            }
+        }
+        // Sharded runs also repeat exactly, including with a different eps in between
+        DistributedALT sharded = DistributedALT.inProcess(stream, bipartition, 3);
+        IntMatching first = sharded.findApproximateIntMatching(eps);
+        int firstRounds = sharded.getRoundCount();
+        sharded.findApproximateIntMatching(1.0 / 2);
+        IntMatching again = sharded.findApproximateIntMatching(eps);
+        assertEquals(firstRounds, sharded.getRoundCount());
+        for (int v = 0; v < stream.vertexCount(); v++) {
+            assertEquals(first.mate(v), again.mate(v));
+        }
+    }
+
+    @Test
+    void testWorkersOverSockets() throws Exception {
+        Random random = new Random(7);
+        ArrayEdgeStream.Builder builder = new ArrayEdgeStream.Builder();
+        for (int i = 0; i < 3000; i++) {
+            builder.addEdge(random.nextInt(400), 400 + random.nextInt(400));
+        }
+        ArrayEdgeStream stream = builder.build();
+        Bipartition bipartition = Bipartition.split(stream.vertexCount(), 400);
+        int numWorkers = 3;
+        EdgeShards shards = new EdgeShards(stream.size(), numWorkers);
+        List<ALTWorker.Connection> connections = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int shard = 0; shard < numWorkers; shard++) {
+            ALTWorker worker = new ALTWorker(stream, shards.from(shard), shards.to(shard), bipartition);
+            ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+            Thread thread = new Thread(() -> {
+                try (ServerSocket s = server; Socket socket = s.accept()) {
+                    worker.serve(socket);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+            connections.add(ALTWorker.connect(new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort())));
+        }
+        double eps = 1.0 / 4;
+        DistributedALT overSockets = new DistributedALT(connections, bipartition);
+        IntMatching matching = overSockets.findApproximateIntMatching(eps);
+        IntMatching secondRun = overSockets.findApproximateIntMatching(eps); // the start request resets every worker
+        overSockets.close();
+        for (Thread thread : threads) {
+            thread.join(10000);
+            assertFalse(thread.isAlive());
+        }
+        IntMatching inProcess = DistributedALT.inProcess(stream, bipartition, numWorkers).findApproximateIntMatching(eps);
+        for (int v = 0; v < stream.vertexCount(); v++) {
+            assertEquals(inProcess.mate(v), matching.mate(v));
+            assertEquals(inProcess.mate(v), secondRun.mate(v));
+        }
+        assertTrue(matching.size() > 0);
+    }
+}
@@ -0,0 +1,76 @@
+import org.javatuples.Pair;
+import org.jgrapht.Graph;
+import org.jgrapht.generate.GnpRandomBipartiteGraphGenerator;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EdgeStreamTest {
+    @Test
+    void testArrayEdgeStreamPasses() {
+        ArrayEdgeStream stream = new ArrayEdgeStream.Builder()
+                .addEdge(0, 1)
+                .addEdge(1, 2)
+                .addEdge(2, 5)
+                .build();
+        assertEquals(3, stream.size());
+        assertEquals(6, stream.vertexCount());
+        for (int pass = 0; pass < 2; pass++) { // every pass sees the same edges in the same order
+            EdgeStream.Cursor cursor = stream.pass();
+            List<Integer> endpoints = new ArrayList<>();
+            while (cursor.next()) {
+                assertEquals(endpoints.size() / 2, cursor.position());
+                endpoints.add(cursor.source());
+                endpoints.add(cursor.target());
+            }
+            assertEquals(List.of(0, 1, 1, 2, 2, 5), endpoints);
+        }
+        EdgeStream.Cursor shard = stream.pass(1, 2);
+        assertTrue(shard.next());
+        assertEquals(1, shard.source());
+        assertEquals(2, shard.target());
+        assertFalse(shard.next());
+        assertThrows(IllegalArgumentException.class, () -> new ArrayEdgeStream(new int[]{0}, new int[]{3}, 3));
+    }
+
+    @Test
+    void testDefaultEdgeStreamRoundTrip() {
+        Pair<Graph<Integer, DefaultEdge>, GnpRandomBipartiteGraphGenerator<Integer, DefaultEdge>> pair = GraphUtils.generateRandomBipartiteGraph(200, 0.02, 42);
+        Graph<Integer, DefaultEdge> graph = pair.getValue0();
+        List<DefaultEdge> edges = new ArrayList<>(graph.edgeSet());
+        DefaultEdgeStream stream = new DefaultEdgeStream(edges);
+        assertEquals(edges.size(), stream.size());
+        EdgeStream.Cursor cursor = stream.pass();
+        while (cursor.next()) {
+            DefaultEdge edge = stream.edgeAt(cursor.position());
+            assertEquals(graph.getEdgeSource(edge).intValue(), stream.label(cursor.source()));
+            assertEquals(graph.getEdgeTarget(edge).intValue(), stream.label(cursor.target()));
+        }
+        IntMatching matching = GraphUtils.findMaximalMatching(stream);
+        Set<DefaultEdge> edgeSet = stream.toEdgeSet(matching);
+        assertEquals(matching.size(), edgeSet.size());
+        GraphUtils.isMatching(edgeSet, graph.edgeSet());
+        assertEquals(edgeSet, GraphUtils.findMaximalMatching(edges));
+    }
+
+    @Test
+    void testEdgeIndex() {
+        ArrayEdgeStream stream = new ArrayEdgeStream.Builder()
+                .addEdge(3, 1)
+                .addEdge(1, 2)
+                .addEdge(1, 3) // same undirected edge as position 0
+                .addEdge(7, 0)
+                .build();
+        EdgeIndex index = EdgeIndex.build(stream);
+        assertEquals(3, index.size());
+        assertEquals(0, index.position(1, 3));
+        assertEquals(0, index.position(3, 1));
+        assertEquals(1, index.position(2, 1));
+        assertEquals(3, index.position(0, 7));
+        assertEquals(-1, index.position(2, 3));
+        assertFalse(index.contains(0, 0));
+    }
+}
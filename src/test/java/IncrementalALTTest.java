@@ -0,0 +1,117 @@
+import org.javatuples.Pair;
+import org.jgrapht.Graph;
+import org.jgrapht.alg.matching.HopcroftKarpMaximumCardinalityBipartiteMatching;
+import org.jgrapht.generate.GnpRandomBipartiteGraphGenerator;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalALTTest {
+    @Test
+    void testUpdatesWarmStartFromPreviousAuction() {
+        Pair<Graph<Integer, DefaultEdge>, GnpRandomBipartiteGraphGenerator<Integer, DefaultEdge>> pair = GraphUtils.generateRandomBipartiteGraph(1000, 0.003, 42);
+        Graph<Integer, DefaultEdge> graph = pair.getValue0();
+        Set<Integer> firstPartition = pair.getValue1().getFirstPartition();
+        Set<Integer> secondPartition = pair.getValue1().getSecondPartition();
+        List<int[]> edges = new ArrayList<>(); // oriented from the first partition to the second
+        for (DefaultEdge edge : graph.edgeSet()) {
+            int source = graph.getEdgeSource(edge);
+            int target = graph.getEdgeTarget(edge);
+            edges.add(firstPartition.contains(source) ? new int[]{source, target} : new int[]{target, source});
+        }
+        Collections.shuffle(edges, new Random(42));
+        int initialEdges = edges.size() * 9 / 10;
+        double eps = 1.0 / 5;
+        IncrementalALT alt = new IncrementalALT(eps);
+        IntMatching initialMatching = alt.update(stream(edges.subList(0, initialEdges)));
+        // Resume with a few rounds instead of the full ceil(2/eps^2) = 50
+        IntMatching matching = alt.update(stream(edges.subList(initialEdges, edges.size())), stream(List.of()), 10);
+        assertEquals(edges.size(), alt.edgeCount());
+        assertTrue(alt.getRoundCount() <= 10);
+        assertTrue(matching.size() >= initialMatching.size()); // inserting edges never shrinks the allocation
+        assertValidMatching(matching, alt.graph());
+        int maxMatchingSize = new HopcroftKarpMaximumCardinalityBipartiteMatching<>(graph, firstPartition, secondPartition).getMatching().getEdges().size();
+        assertTrue(matching.size() >= (1 - eps) * maxMatchingSize);
+
+        // Deleting allocated edges frees their endpoints, which are then reallocated along other edges if possible
+        List<int[]> deleted = new ArrayList<>();
+        for (int[] edge : edges) {
+            if (matching.contains(edge[0], edge[1]) && deleted.size() < 50) {
+                deleted.add(edge);
+            }
+        }
+        IntMatching afterDeletion = alt.update(stream(List.of()), stream(deleted));
+        assertEquals(edges.size() - deleted.size(), alt.edgeCount());
+        assertValidMatching(afterDeletion, alt.graph());
+        for (int[] edge : deleted) {
+            assertFalse(afterDeletion.contains(edge[0], edge[1]));
+        }
+    }
+
+    @Test
+    void testFirstUpdateRunsTheRoundsOfALT() {
+        Pair<Graph<Integer, DefaultEdge>, GnpRandomBipartiteGraphGenerator<Integer, DefaultEdge>> pair = GraphUtils.generateRandomBipartiteGraph(400, 0.01, 7);
+        Graph<Integer, DefaultEdge> graph = pair.getValue0();
+        Set<Integer> firstPartition = pair.getValue1().getFirstPartition();
+        List<int[]> edges = new ArrayList<>();
+        for (DefaultEdge edge : graph.edgeSet()) {
+            int source = graph.getEdgeSource(edge);
+            int target = graph.getEdgeTarget(edge);
+            edges.add(firstPartition.contains(source) ? new int[]{source, target} : new int[]{target, source});
+        }
+        double eps = 1.0 / 4;
+        IncrementalALT incremental = new IncrementalALT(eps);
+        MatchingMetrics metrics = new MatchingMetrics();
+        incremental.setListener(metrics);
+        IntMatching matching = incremental.update(stream(edges));
+
+        ArrayEdgeStream current = incremental.graph();
+        BitSet left = new BitSet();
+        BitSet right = new BitSet();
+        for (int[] edge : edges) {
+            left.set(edge[0]);
+            right.set(edge[1]);
+        }
+        ALT alt = new ALT(current, Bipartition.of(current.vertexCount(), left, right));
+        IntMatching expected = alt.findApproximateIntMatching(eps);
+        assertEquals(alt.getRoundCount(), incremental.getRoundCount());
+        assertEquals(incremental.getRoundCount(), metrics.getRoundMatchingSizes().size());
+        for (int v = 0; v < current.vertexCount(); v++) {
+            assertEquals(expected.mate(v), matching.mate(v));
+        }
+
+        // A budget stops the rounds of an update like those of a run of ALT
+        incremental.update(stream(List.of(new int[]{edges.get(0)[0], current.vertexCount()})), stream(List.of()), 50,
+                PassBudget.unlimited().withMaxPasses(1));
+        assertEquals(0, incremental.getRoundCount());
+    }
+
+    @Test
+    void testUpdateRejectsEdgesAgainstTheSides() {
+        IncrementalALT alt = new IncrementalALT(0.5);
+        alt.update(new ArrayEdgeStream.Builder().addEdge(0, 1).build());
+        assertThrows(IllegalArgumentException.class, () -> alt.update(new ArrayEdgeStream.Builder().addEdge(1, 2).build()));
+        assertThrows(IllegalArgumentException.class, () -> alt.update(new ArrayEdgeStream.Builder().addEdge(2, 2).build()));
+        assertEquals(1, alt.update(new ArrayEdgeStream.Builder().addEdge(2, 1).build()).size());
+    }
+
+    private static EdgeStream stream(List<int[]> edges) {
+        ArrayEdgeStream.Builder builder = new ArrayEdgeStream.Builder();
+        for (int[] edge : edges) {
+            builder.addEdge(edge[0], edge[1]);
+        }
+        return builder.build();
+    }
+
+    private static void assertValidMatching(IntMatching matching, EdgeStream graph) {
+        EdgeIndex index = EdgeIndex.build(graph);
+        for (int v = 0; v < matching.vertexCount(); v++) {
+            if (matching.isMatched(v)) {
+                assertTrue(index.contains(v, matching.mate(v)));
+            }
+        }
+    }
+}
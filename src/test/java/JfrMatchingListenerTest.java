@@ -0,0 +1,87 @@
+import org.javatuples.Pair;
+import org.jgrapht.Graph;
+import org.jgrapht.generate.GnpRandomBipartiteGraphGenerator;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JfrMatchingListenerTest {
+    @Test
+    void testRecordsPassRoundAndRunEvents() throws IOException {
+        Pair<Graph<Integer, DefaultEdge>, GnpRandomBipartiteGraphGenerator<Integer, DefaultEdge>> pair = GraphUtils.generateRandomBipartiteGraph(300, 0.02, 42);
+        DefaultEdgeStream stream = new DefaultEdgeStream(new ArrayList<>(pair.getValue0().edgeSet()));
+        double eps = 0.2;
+        // ALT is deterministic, so a run reported to MatchingMetrics gives the values the recorded run must carry
+        MatchingMetrics metrics = new MatchingMetrics();
+        ALT expected = new ALT(stream);
+        expected.setListener(metrics);
+        IntMatching expectedMatching = expected.findApproximateIntMatching(eps);
+
+        ALT alt = new ALT(stream);
+        alt.setListener(new JfrMatchingListener());
+        Path file = Files.createTempFile("matching", ".jfr");
+        List<RecordedEvent> events;
+        try {
+            try (Recording recording = new Recording()) {
+                recording.enable("matching.Pass");
+                recording.enable("matching.Round");
+                recording.enable("matching.Run");
+                recording.start();
+                alt.findApproximateIntMatching(eps);
+                recording.stop();
+                recording.dump(file);
+            }
+            events = RecordingFile.readAllEvents(file);
+        } finally {
+            Files.delete(file);
+        }
+
+        List<RecordedEvent> passes = eventsNamed(events, "matching.Pass", "pass");
+        assertEquals(metrics.getPasses(), passes.size());
+        for (int p = 0; p < passes.size(); p++) {
+            RecordedEvent pass = passes.get(p);
+            assertEquals("ALT", pass.getString("algorithm"));
+            assertEquals(p + 1, pass.getLong("pass"));
+            assertEquals(stream.size(), pass.getLong("edgesScanned"));
+            assertFalse(pass.getDuration("passNanos").isNegative());
+        }
+        List<RecordedEvent> rounds = eventsNamed(events, "matching.Round", "round");
+        List<Integer> roundSizes = metrics.getRoundMatchingSizes();
+        assertEquals(roundSizes.size(), rounds.size());
+        for (int r = 0; r < rounds.size(); r++) {
+            RecordedEvent round = rounds.get(r);
+            assertEquals("ALT", round.getString("algorithm"));
+            assertEquals(r + 1, round.getLong("round"));
+            assertEquals((int) roundSizes.get(r), round.getInt("matchingSize"));
+        }
+        List<RecordedEvent> runs = eventsNamed(events, "matching.Run", null);
+        assertEquals(1, runs.size());
+        assertEquals(expectedMatching.size(), runs.get(0).getInt("matchingSize"));
+        assertEquals(metrics.getPasses(), runs.get(0).getLong("passes"));
+        assertEquals(metrics.getPeakVertexStateBytes(), runs.get(0).getLong("vertexStateBytes"));
+    }
+
+    // The events of the given type, ordered by the given long field if not null
+    private static List<RecordedEvent> eventsNamed(List<RecordedEvent> events, String name, String orderField) {
+        List<RecordedEvent> named = new ArrayList<>();
+        for (RecordedEvent event : events) {
+            if (event.getEventType().getName().equals(name)) {
+                named.add(event);
+            }
+        }
+        if (orderField != null) {
+            named.sort(Comparator.comparingLong(event -> event.getLong(orderField)));
+        }
+        return named;
+    }
+}
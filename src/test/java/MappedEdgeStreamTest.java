@@ -0,0 +1,79 @@
+import org.javatuples.Pair;
+import org.jgrapht.Graph;
+import org.jgrapht.generate.GnpRandomBipartiteGraphGenerator;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedEdgeStreamTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testRoundTripAcrossSegments() throws IOException {
+        Pair<Graph<Integer, DefaultEdge>, GnpRandomBipartiteGraphGenerator<Integer, DefaultEdge>> pair = GraphUtils.generateRandomBipartiteGraph(300, 0.01, 42);
+        DefaultEdgeStream original = new DefaultEdgeStream(new ArrayList<>(pair.getValue0().edgeSet()));
+        Path file = tempDir.resolve("graph.edges");
+        MappedEdgeStream.write(original, file);
+        assertEquals(MappedEdgeStream.HEADER_BYTES + original.size() * MappedEdgeStream.EDGE_BYTES, Files.size(file));
+        MappedEdgeStream mapped = MappedEdgeStream.open(file, 7); // force passes to cross segment boundaries
+        assertEquals(original.size(), mapped.size());
+        assertEquals(original.vertexCount(), mapped.vertexCount());
+        for (long from : new long[]{0, 6, 7, 13}) {
+            EdgeStream.Cursor expected = original.pass(from, original.size());
+            EdgeStream.Cursor actual = mapped.pass(from, mapped.size());
+            while (expected.next()) {
+                assertTrue(actual.next());
+                assertEquals(expected.position(), actual.position());
+                assertEquals(expected.source(), actual.source());
+                assertEquals(expected.target(), actual.target());
+            }
+            assertFalse(actual.next());
+        }
+        // The algorithms see the same stream and therefore compute the same matching
+        double eps = 1.0 / 3;
+        IntMatching fromMemory = new ALT(original).findApproximateIntMatching(eps);
+        IntMatching fromFile = new ALT(mapped).findApproximateIntMatching(eps);
+        assertEquals(fromMemory.size(), fromFile.size());
+        for (int v = 0; v < original.vertexCount(); v++) {
+            assertEquals(fromMemory.mate(v), fromFile.mate(v));
+        }
+    }
+
+    @Test
+    void testRejectsMalformedFiles() throws IOException {
+        Path file = tempDir.resolve("not-edges.bin");
+        Files.write(file, new byte[]{1, 2, 3});
+        assertThrows(IOException.class, () -> MappedEdgeStream.open(file));
+        Path empty = tempDir.resolve("empty.edges");
+        new MappedEdgeStream.Writer(empty, 0).close();
+        MappedEdgeStream stream = MappedEdgeStream.open(empty);
+        assertEquals(0, stream.size());
+        assertFalse(stream.pass().next());
+
+        Path corrupt = tempDir.resolve("corrupt.edges");
+        try (MappedEdgeStream.Writer writer = new MappedEdgeStream.Writer(corrupt, 4)) {
+            writer.addEdge(0, 1);
+            writer.addEdge(2, 3);
+        }
+        byte[] bytes = Files.readAllBytes(corrupt);
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putLong(16, Long.MAX_VALUE / 4); // size * 8 overflows
+        Files.write(corrupt, bytes);
+        assertThrows(IOException.class, () -> MappedEdgeStream.open(corrupt));
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putLong(16, 2).putInt(MappedEdgeStream.HEADER_BYTES + 12, 4);
+        Files.write(corrupt, bytes);
+        EdgeStream.Cursor cursor = MappedEdgeStream.open(corrupt).pass();
+        assertTrue(cursor.next());
+        assertThrows(UncheckedIOException.class, cursor::next);
+    }
+}
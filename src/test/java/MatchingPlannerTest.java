@@ -0,0 +1,65 @@
+import org.javatuples.Pair;
+import org.jgrapht.Graph;
+import org.jgrapht.alg.matching.DenseEdmondsMaximumCardinalityMatching;
+import org.jgrapht.alg.matching.HopcroftKarpMaximumCardinalityBipartiteMatching;
+import org.jgrapht.generate.GnpRandomBipartiteGraphGenerator;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchingPlannerTest {
+    @Test
+    void testPlansForBipartiteStreams() {
+        Pair<Graph<Integer, DefaultEdge>, GnpRandomBipartiteGraphGenerator<Integer, DefaultEdge>> pair = GraphUtils.generateRandomBipartiteGraph(500, 0.01, 42);
+        Graph<Integer, DefaultEdge> graph = pair.getValue0();
+        int maxMatchingSize = new HopcroftKarpMaximumCardinalityBipartiteMatching<>(graph, pair.getValue1().getFirstPartition(), pair.getValue1().getSecondPartition()).getMatching().getEdges().size();
+        DefaultEdgeStream stream = new DefaultEdgeStream(new ArrayList<>(graph.edgeSet()));
+
+        MatchingPlanner.Plan greedy = MatchingPlanner.plan(stream, 0.5);
+        assertEquals(MatchingPlanner.Algorithm.GREEDY, greedy.getAlgorithm());
+        assertEquals(1, greedy.getExpectedPasses());
+        assertTrue(greedy.isGuaranteed());
+        assertTrue(greedy.execute().size() >= 0.5 * maxMatchingSize);
+
+        double eps = 0.2;
+        MatchingPlanner.Plan alt = MatchingPlanner.plan(stream, eps, PassBudget.unlimited().withMaxPasses(50));
+        assertEquals(MatchingPlanner.Algorithm.ALT, alt.getAlgorithm());
+        assertEquals(1 + 2 * 50, alt.getExpectedPasses());
+        assertFalse(alt.isWithinBudget());
+        assertFalse(alt.isGuaranteed()); // a run cut short by the budget may fall short of 1 - eps
+        assertTrue(MatchingPlanner.plan(stream, eps).isGuaranteed());
+        assertTrue(alt.toString().startsWith("ALT"));
+        Set<DefaultEdge> matching = alt.matcher().findApproximateMaxMatching(alt.getEps());
+        GraphUtils.isMatching(matching, graph.edgeSet());
+        assertTrue(matching.size() >= (1 - eps) * maxMatchingSize);
+    }
+
+    @Test
+    void testPlansForGeneralStreams() {
+        Graph<Integer, DefaultEdge> graph = GraphUtils.generateRandomGraph(300, 0.01, 42);
+        int maxMatchingSize = new DenseEdmondsMaximumCardinalityMatching<>(graph).getMatching().getEdges().size();
+        DefaultEdgeStream stream = new DefaultEdgeStream(new ArrayList<>(graph.edgeSet()));
+        double eps = 0.25;
+        // McGregor's 1/(1 + eps') guarantee with eps' = 1/3 is exactly 1 - eps, and without a budget only the layered
+        // engine has it, however many passes it takes
+        MatchingPlanner.Plan guaranteed = MatchingPlanner.plan(stream, eps);
+        assertEquals(MatchingPlanner.Algorithm.MCGREGOR_LAYERED, guaranteed.getAlgorithm());
+        assertEquals(1.0 / 3, guaranteed.getEps(), 1e-12);
+        assertEquals(2 + MatchingPlanner.layeredPasses(1.0 / 3), guaranteed.getExpectedPasses());
+        assertTrue(guaranteed.isGuaranteed());
+
+        // Under a budget the layered engine does not fit, the cheaper reduction is planned, with a heuristic guarantee
+        MatchingPlanner.Plan plan = MatchingPlanner.plan(stream, eps, PassBudget.unlimited().withMaxPasses(100000));
+        assertEquals(MatchingPlanner.Algorithm.MCGREGOR_BIPARTITE_REDUCTION, plan.getAlgorithm());
+        assertEquals(2 + MatchingPlanner.reductionPasses(1.0 / 3), plan.getExpectedPasses());
+        assertTrue(plan.isWithinBudget());
+        assertFalse(plan.isGuaranteed());
+        assertTrue(plan.toString().contains("heuristic"));
+        IntMatching matching = plan.execute();
+        assertTrue(matching.size() >= (1 - eps) * maxMatchingSize);
+        assertThrows(IllegalArgumentException.class, () -> MatchingPlanner.plan(stream, 1));
+    }
+}
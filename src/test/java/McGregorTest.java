@@ -7,7 +7,9 @@ import org.jgrapht.graph.SimpleGraph;
 import org.jgrapht.util.SupplierUtil;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -70,4 +72,119 @@ class McGregorTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    void testPhaseCountDoesNotOverflow() {
+        assertEquals(528768, McGregor.phaseCount(3));
+        long previous = 0;
+        for (int k = 2; k <= 40; k++) {
+            long r = McGregor.phaseCount(k);
+            assertTrue(r >= previous);
+            previous = r;
+        }
+        assertEquals(Long.MAX_VALUE, McGregor.phaseCount(11));
+    }
+
+    @Test
+    void testPassBudgetStopsEarly() {
+        Graph<Integer, DefaultEdge> gnpRandomGraph = GraphUtils.generateRandomGraph(200, 0.02, 42);
+        List<DefaultEdge> stream = new ArrayList<>(gnpRandomGraph.edgeSet());
+        int maximalMatchingSize = GraphUtils.findMaximalMatching(stream).size();
+        McGregor mcGregor = new McGregor(stream);
+        for (PassBudget budget : Arrays.asList(PassBudget.unlimited().withMaxPhases(5),
+                PassBudget.unlimited().withMaxPasses(50),
+                PassBudget.unlimited().withMaxStalledPhases(3),
+                PassBudget.unlimited().withTimeLimit(Duration.ofMillis(200)))) {
+            Set<DefaultEdge> matching = mcGregor.findApproximateMaxMatching(0.1, budget);
+            GraphUtils.isMatching(matching, gnpRandomGraph.edgeSet());
+            assertTrue(matching.size() >= maximalMatchingSize); // never worse than the initial maximal matching
+            assertTrue(mcGregor.getPhaseCount() <= budget.getMaxPhases());
+            assertTrue(mcGregor.getPassCount() <= budget.getMaxPasses());
+        }
+    }
+
+    @Test
+    void testSharedScanMatchesSequentialWithFewerPasses() {
+        Graph<Integer, DefaultEdge> gnpRandomGraph = GraphUtils.generateRandomGraph(300, 0.01, 42);
+        List<DefaultEdge> stream = new ArrayList<>(gnpRandomGraph.edgeSet());
+        PassBudget budget = PassBudget.unlimited().withMaxPhases(20);
+        McGregor sequential = new McGregor(stream);
+        Set<DefaultEdge> sequentialMatching = sequential.findApproximateMaxMatching(0.2, budget);
+        McGregor shared = new McGregor(stream);
+        shared.setSharedScan(true);
+        Set<DefaultEdge> sharedMatching = shared.findApproximateMaxMatching(0.2, budget);
+        assertEquals(sequentialMatching, sharedMatching);
+        assertEquals(sequential.getPhaseCount(), shared.getPhaseCount());
+        assertTrue(shared.getPassCount() < sequential.getPassCount());
+    }
+
+    @Test
+    void testListenerReportsPassesAndPhases() {
+        Graph<Integer, DefaultEdge> gnpRandomGraph = GraphUtils.generateRandomGraph(200, 0.02, 42);
+        List<DefaultEdge> stream = new ArrayList<>(gnpRandomGraph.edgeSet());
+        PassBudget budget = PassBudget.unlimited().withMaxPhases(5);
+        for (boolean sharedScan : Arrays.asList(false, true)) {
+            McGregor mcGregor = new McGregor(stream);
+            mcGregor.setSharedScan(sharedScan);
+            MatchingMetrics metrics = new MatchingMetrics();
+            mcGregor.setListener(metrics);
+            Set<DefaultEdge> matching = mcGregor.findApproximateMaxMatching(0.25, budget);
+            assertEquals(mcGregor.getPassCount(), metrics.getPasses());
+            assertEquals(metrics.getPasses() * stream.size(), metrics.getEdgesScanned());
+            List<Integer> sizes = metrics.getRoundMatchingSizes();
+            assertEquals(mcGregor.getPhaseCount(), sizes.size());
+            assertEquals(matching.size(), sizes.get(sizes.size() - 1));
+            assertTrue(metrics.getMaxRecursionDepth() >= 1 && metrics.getMaxRecursionDepth() <= 6); // at most k + 1 layers
+            assertTrue(metrics.getPeakVertexStateBytes() >= 4L * gnpRandomGraph.vertexSet().size());
+        }
+    }
+
+    @Test
+    void testTrialsKeepTheLargestMatchingReproducibly() {
+        Graph<Integer, DefaultEdge> gnpRandomGraph = GraphUtils.generateRandomGraph(300, 0.01, 42);
+        List<DefaultEdge> stream = new ArrayList<>(gnpRandomGraph.edgeSet());
+        PassBudget budget = PassBudget.unlimited().withMaxPhases(10);
+        int trials = 4;
+        ForkJoinPool pool = new ForkJoinPool(2);
+        McGregor mcGregor = new McGregor(stream);
+        mcGregor.setSeed(7);
+        mcGregor.setTrials(trials, pool);
+        Set<DefaultEdge> best = mcGregor.findApproximateMaxMatching(0.25, budget);
+        assertEquals(best, mcGregor.findApproximateMaxMatching(0.25, budget));
+        GraphUtils.isMatching(best, gnpRandomGraph.edgeSet());
+        // The trials are the sequential runs with the derived seeds, of which the first largest one is kept
+        long[] trialSeeds = McGregor.trialSeeds(7, trials);
+        for (int t = 0; t < trials; t++) {
+            McGregor trial = new McGregor(stream);
+            trial.setSeed(trialSeeds[t]);
+            Set<DefaultEdge> matching = trial.findApproximateMaxMatching(0.25, budget);
+            if (t == mcGregor.getBestTrial()) {
+                assertEquals(best, matching);
+            } else if (t < mcGregor.getBestTrial()) {
+                assertTrue(matching.size() < best.size());
+            } else {
+                assertTrue(matching.size() <= best.size());
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> mcGregor.setTrials(0));
+        pool.shutdown();
+    }
+
+    @Test
+    void testBipartiteReductionEngine() {
+        Graph<Integer, DefaultEdge> gnpRandomGraph = GraphUtils.generateRandomGraph(400, 0.01, 42);
+        List<DefaultEdge> stream = new ArrayList<>(gnpRandomGraph.edgeSet());
+        int actualMaxMatchingSize = new DenseEdmondsMaximumCardinalityMatching<>(gnpRandomGraph).getMatching().getEdges().size();
+        double eps = 1.0 / 3;
+        McGregor mcGregor = new McGregor(stream);
+        mcGregor.setEngine(McGregor.Engine.BIPARTITE_REDUCTION);
+        Set<DefaultEdge> matching = mcGregor.findApproximateMaxMatching(eps);
+        GraphUtils.isMatching(matching, gnpRandomGraph.edgeSet());
+        assertTrue(matching.size() >= (1.0 / (1 + eps)) * actualMaxMatchingSize);
+        assertEquals(BipartiteReduction.trialCount(3), mcGregor.getPhaseCount());
+        assertTrue(mcGregor.getPassCount() <= 1 + mcGregor.getPhaseCount() * 2 * (long) Math.ceil(2 / (eps * eps)));
+        assertEquals(matching, mcGregor.findApproximateMaxMatching(eps));
+        Set<DefaultEdge> budgeted = mcGregor.findApproximateMaxMatching(eps, PassBudget.unlimited().withMaxPasses(50));
+        GraphUtils.isMatching(budgeted, gnpRandomGraph.edgeSet());
+        assertTrue(mcGregor.getPassCount() <= 50);
+    }
+}
@@ -0,0 +1,91 @@
+import org.jgrapht.Graph;
+import org.jgrapht.alg.matching.DenseEdmondsMaximumCardinalityMatching;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OnePassMatcherTest {
+    @Test
+    void testSinglePassOverAStreamThatCannotBeRewound() {
+        Graph<Integer, DefaultEdge> graph = GraphUtils.generateRandomGraph(1000, 0.003, 42);
+        int maxMatchingSize = new DenseEdmondsMaximumCardinalityMatching<>(graph).getMatching().getEdges().size();
+        DefaultEdgeStream edges = new DefaultEdgeStream(new ArrayList<>(graph.edgeSet()));
+        EdgeStream oneShot = new EdgeStream() {
+            private boolean consumed = false;
+
+            @Override
+            public long size() {
+                return edges.size();
+            }
+
+            @Override
+            public int vertexCount() {
+                return edges.vertexCount();
+            }
+
+            @Override
+            public Cursor pass(long from, long to) {
+                assertFalse(consumed, "the stream was read twice");
+                consumed = true;
+                return edges.pass(from, to);
+            }
+        };
+        long[] stateBytes = new long[1];
+        OnePassMatcher matcher = new OnePassMatcher(oneShot, OnePassMatcher.vertexStateBytes(edges.vertexCount()));
+        matcher.setListener(new MatchingListener() {
+            @Override
+            public void onRunEnd(String algorithm, int matchingSize, long passes, long vertexStateBytes) {
+                assertEquals(1, passes);
+                stateBytes[0] = vertexStateBytes;
+            }
+        });
+        IntMatching matching = matcher.findApproximateIntMatching(0.5);
+        assertEquals(12L * edges.vertexCount(), stateBytes[0]);
+        assertTrue(matcher.getAugmentationCount() > 0);
+        assertTrue(matching.size() > GraphUtils.findMaximalMatching(edges).size());
+        assertTrue(matching.size() >= 0.5 * maxMatchingSize);
+        // The result is a maximal matching of the graph
+        EdgeStream.Cursor cursor = edges.pass();
+        while (cursor.next()) {
+            assertTrue(matching.isMatched(cursor.source()) || matching.isMatched(cursor.target()));
+        }
+        Set<DefaultEdge> edgeSet = edges.toEdgeSet(matching);
+        GraphUtils.isMatching(edgeSet, graph.edgeSet());
+        assertThrows(IllegalArgumentException.class, () -> new OnePassMatcher(edges, 12L * edges.vertexCount() - 1));
+    }
+
+    @Test
+    void testSnapshotsGrowDuringThePass() {
+        OnePassMatcher matcher = new OnePassMatcher(4);
+        matcher.setSnapshotInterval(1);
+        // Greedy keeps only {1, 2}; the wing 0 of vertex 1 completes the augmenting path 0 - 1 = 2 - 3
+        assertTrue(matcher.offer(1, 2));
+        assertFalse(matcher.offer(0, 1));
+        assertEquals(1, matcher.snapshot().size());
+        assertTrue(matcher.offer(2, 3));
+        IntMatching snapshot = matcher.snapshot();
+        assertEquals(2, snapshot.size());
+        assertTrue(snapshot.contains(0, 1) && snapshot.contains(2, 3));
+        assertEquals(1, matcher.getAugmentationCount());
+        assertThrows(IllegalArgumentException.class, () -> matcher.offer(3, 4));
+        assertThrows(IllegalStateException.class, () -> matcher.findApproximateIntMatching(0.5));
+
+        // Between publications the snapshot lags behind the current matching
+        matcher.reset();
+        matcher.setSnapshotInterval(2);
+        matcher.offer(0, 1);
+        assertEquals(0, matcher.snapshot().size());
+        assertEquals(1, matcher.getMatching().size());
+        IntMatching lagging = matcher.snapshot();
+        matcher.offer(2, 3);
+        assertEquals(2, matcher.snapshot().size());
+        // Publications overwrite the published snapshot in place, never the copies already handed out
+        assertEquals(0, lagging.size());
+        assertFalse(lagging.isMatched(0));
+        matcher.reset();
+        assertEquals(0, matcher.snapshot().size());
+    }
+}
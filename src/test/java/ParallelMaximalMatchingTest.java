@@ -0,0 +1,73 @@
+import org.javatuples.Pair;
+import org.jgrapht.Graph;
+import org.jgrapht.alg.matching.HopcroftKarpMaximumCardinalityBipartiteMatching;
+import org.jgrapht.generate.GnpRandomBipartiteGraphGenerator;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelMaximalMatchingTest {
+    @Test
+    void testFindsMaximalMatching() {
+        Graph<Integer, DefaultEdge> gnpRandomGraph = GraphUtils.generateRandomGraph(2000, 0.005, 42);
+        DefaultEdgeStream stream = new DefaultEdgeStream(new ArrayList<>(gnpRandomGraph.edgeSet()));
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int numShards : Arrays.asList(1, 4, 16)) {
+                IntMatching matching = GraphUtils.findMaximalMatching(stream, pool, numShards);
+                GraphUtils.isMatching(stream.toEdgeSet(matching), gnpRandomGraph.edgeSet());
+                assertEquals(matching.size(), stream.toEdgeSet(matching).size());
+                EdgeStream.Cursor cursor = stream.pass();
+                while (cursor.next()) { // maximality: every edge has a matched endpoint
+                    assertTrue(matching.isMatched(cursor.source()) || matching.isMatched(cursor.target()));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testMaximalUnderManySchedules() {
+        // Dense graphs make workers contend for the same endpoints, so that claims are often seen half-way
+        for (int threads : Arrays.asList(2, 3, 8)) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                for (long seed = 0; seed < 20; seed++) {
+                    Graph<Integer, DefaultEdge> graph = GraphUtils.generateRandomGraph(200, 0.1, seed);
+                    DefaultEdgeStream stream = new DefaultEdgeStream(new ArrayList<>(graph.edgeSet()));
+                    IntMatching matching = GraphUtils.findMaximalMatching(stream, pool, 4 * threads);
+                    GraphUtils.isMatching(stream.toEdgeSet(matching), graph.edgeSet());
+                    EdgeStream.Cursor cursor = stream.pass();
+                    while (cursor.next()) {
+                        assertTrue(matching.isMatched(cursor.source()) || matching.isMatched(cursor.target()),
+                                "Edge " + cursor.position() + " has two free endpoints with seed " + seed + " and " + threads + " threads");
+                    }
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    @Test
+    void testALTWithParallelMaximalMatching() {
+        Pair<Graph<Integer, DefaultEdge>, GnpRandomBipartiteGraphGenerator<Integer, DefaultEdge>> pair = GraphUtils.generateRandomBipartiteGraph(1000, 0.003, 42);
+        Graph<Integer, DefaultEdge> graph = pair.getValue0();
+        GnpRandomBipartiteGraphGenerator<Integer, DefaultEdge> generator = pair.getValue1();
+        int actualMaxMatchingSize = new HopcroftKarpMaximumCardinalityBipartiteMatching<>(graph,
+                generator.getFirstPartition(), generator.getSecondPartition()).getMatching().getEdges().size();
+        ALT alt = new ALT(new ArrayList<>(graph.edgeSet()));
+        alt.setParallelism(4);
+        alt.setParallelMaximalMatching(true);
+        for (double eps : Arrays.asList(1.0 / 2, 1.0 / 5)) {
+            Set<DefaultEdge> matching = alt.findApproximateMaxMatching(eps);
+            GraphUtils.isMatching(matching, graph.edgeSet());
+            assertTrue(matching.size() >= (1 - eps) * actualMaxMatchingSize);
+        }
+    }
+}
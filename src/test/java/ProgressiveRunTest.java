@@ -0,0 +1,101 @@
+import org.javatuples.Pair;
+import org.jgrapht.Graph;
+import org.jgrapht.generate.GnpRandomBipartiteGraphGenerator;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProgressiveRunTest {
+    @Test
+    void testALTPublishesEveryRound() throws InterruptedException {
+        Pair<Graph<Integer, DefaultEdge>, GnpRandomBipartiteGraphGenerator<Integer, DefaultEdge>> pair = GraphUtils.generateRandomBipartiteGraph(500, 0.01, 42);
+        DefaultEdgeStream stream = new DefaultEdgeStream(new ArrayList<>(pair.getValue0().edgeSet()));
+        double eps = 1.0 / 10;
+        ALT reference = new ALT(stream);
+        IntMatching expected = reference.findApproximateIntMatching(eps);
+
+        ALT alt = new ALT(stream);
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            ProgressiveRun run = ProgressiveRun.start(alt, eps, PassBudget.unlimited(), executor);
+            CollectingSubscriber subscriber = new CollectingSubscriber();
+            run.subscribe(subscriber);
+            IntMatching matching = run.getResult().join();
+            assertTrue(subscriber.completed.await(10, TimeUnit.SECONDS));
+            for (int v = 0; v < stream.vertexCount(); v++) {
+                assertEquals(expected.mate(v), matching.mate(v));
+            }
+            assertSame(matching, run.getCurrentBest());
+            // Subscribed after the start, so it may have missed the first rounds, but not their order
+            assertTrue(subscriber.sizes.size() <= reference.getRoundCount());
+            for (int i = 1; i < subscriber.sizes.size(); i++) {
+                assertTrue(subscriber.sizes.get(i) >= subscriber.sizes.get(i - 1));
+            }
+            assertFalse(run.isCancelled());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // A run cancelled before its first pass returns an empty matching
+        AtomicBoolean cancelled = new AtomicBoolean(true);
+        assertEquals(0, alt.findApproximateIntMatching(eps, PassBudget.unlimited().withCancellation(cancelled::get)).size());
+        assertEquals(0, alt.getRoundCount());
+    }
+
+    @Test
+    void testCancelledMcGregorReturnsTheBestSoFar() {
+        Graph<Integer, DefaultEdge> graph = GraphUtils.generateRandomGraph(300, 0.02, 42);
+        DefaultEdgeStream stream = new DefaultEdgeStream(new ArrayList<>(graph.edgeSet()));
+        McGregor mcGregor = new McGregor(stream);
+        int greedySize = GraphUtils.findMaximalMatching(stream).size();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // Its r phases would take far longer than the deadline
+            ProgressiveRun run = ProgressiveRun.start(mcGregor, 0.5, PassBudget.unlimited(), executor);
+            IntMatching matching = run.getWithin(Duration.ofMillis(200));
+            assertTrue(run.isCancelled());
+            assertTrue(mcGregor.getPhaseCount() > 0);
+            assertTrue(matching.size() >= greedySize);
+            assertSame(matching, run.getCurrentBest());
+            Set<DefaultEdge> edgeSet = stream.toEdgeSet(matching);
+            GraphUtils.isMatching(edgeSet, graph.edgeSet());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static class CollectingSubscriber implements Flow.Subscriber<IntMatching> {
+        private final List<Integer> sizes = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(IntMatching matching) {
+            sizes.add(matching.size());
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            fail(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+import org.javatuples.Pair;
+import org.jgrapht.Graph;
+import org.jgrapht.generate.GnpRandomBipartiteGraphGenerator;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VertexStoreTest {
+    @Test
+    void testArraysAcrossChunks() {
+        VertexStore offHeap = VertexStore.offHeap(4); // chunks of 16 elements
+        VertexStore.IntArray ints = offHeap.newIntArray(50);
+        VertexStore.DoubleArray doubles = offHeap.newDoubleArray(50);
+        assertEquals(50, ints.length());
+        ints.fill(-1);
+        doubles.fill(0.5);
+        for (int i = 0; i < 50; i += 3) {
+            ints.set(i, i * i);
+            doubles.set(i, i / 4.0);
+        }
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i % 3 == 0 ? i * i : -1, ints.get(i));
+            assertEquals(i % 3 == 0 ? i / 4.0 : 0.5, doubles.get(i));
+        }
+        assertThrows(IllegalArgumentException.class, () -> offHeap.newIntArray(-1));
+        assertThrows(IllegalStateException.class, () -> VertexStore.HEAP.newIntArray(1)); // heap state is in Java arrays
+    }
+
+    @Test
+    void testMatchersGiveTheSameResultOffHeap() {
+        Pair<Graph<Integer, DefaultEdge>, GnpRandomBipartiteGraphGenerator<Integer, DefaultEdge>> pair = GraphUtils.generateRandomBipartiteGraph(300, 0.02, 42);
+        DefaultEdgeStream stream = new DefaultEdgeStream(new ArrayList<>(pair.getValue0().edgeSet()));
+        VertexStore offHeap = VertexStore.offHeap(6);
+        IntMatching heapALT = new ALT(stream).findApproximateIntMatching(0.2);
+        IntMatching offHeapALT = new ALT(stream, Bipartition.detect(stream), offHeap).findApproximateIntMatching(0.2);
+        assertSameMatching(heapALT, offHeapALT);
+        ALT heapTarget = new ALT(stream);
+        heapTarget.setQualityTarget(true);
+        ALT offHeapTarget = new ALT(stream, Bipartition.detect(stream), offHeap);
+        offHeapTarget.setQualityTarget(true);
+        assertSameMatching(heapTarget.findApproximateIntMatching(0.2), offHeapTarget.findApproximateIntMatching(0.2));
+        assertEquals(heapTarget.getRoundCount(), offHeapTarget.getRoundCount());
+        assertThrows(IllegalStateException.class, () -> offHeapTarget.setParallelism(2));
+
+        // Resuming an auction across updates works the same in both stores
+        IncrementalALT heapIncremental = new IncrementalALT(0.2);
+        IncrementalALT offHeapIncremental = new IncrementalALT(0.2, offHeap);
+        Bipartition sides = Bipartition.detect(stream);
+        for (int part = 0; part < 2; part++) {
+            ArrayEdgeStream.Builder builder = new ArrayEdgeStream.Builder();
+            EdgeStream.Cursor cursor = stream.pass(part * stream.size() / 2, (part + 1) * stream.size() / 2);
+            while (cursor.next()) {
+                int s = cursor.source();
+                int t = cursor.target();
+                builder.addEdge(sides.isLeft(s) ? s : t, sides.isLeft(s) ? t : s);
+            }
+            ArrayEdgeStream delta = builder.build();
+            assertSameMatching(heapIncremental.update(delta), offHeapIncremental.update(delta));
+        }
+    }
+
+    @Test
+    void testAuctionsAgreeAcrossEpsAndWeights() {
+        Pair<Graph<Integer, DefaultEdge>, GnpRandomBipartiteGraphGenerator<Integer, DefaultEdge>> pair = GraphUtils.generateRandomBipartiteGraph(200, 0.03, 11);
+        DefaultEdgeStream stream = new DefaultEdgeStream(new ArrayList<>(pair.getValue0().edgeSet()));
+        Bipartition sides = Bipartition.detect(stream);
+        VertexStore offHeap = VertexStore.offHeap(5);
+        double[] weights = new double[(int) stream.size()];
+        Random random = new Random(11);
+        for (int p = 0; p < weights.length; p++) {
+            weights[p] = 0.5 + random.nextInt(10);
+        }
+        EdgeWeights edgeWeights = new EdgeWeights(stream, weights);
+        // The passes are written out in both auctions, so every copy must take the same decisions
+        for (double eps : new double[] {0.1, 0.25, 0.5}) {
+            for (boolean qualityTarget : new boolean[] {false, true}) {
+                ALT heap = new ALT(stream, sides);
+                heap.setQualityTarget(qualityTarget);
+                ALT offHeapALT = new ALT(stream, sides, offHeap);
+                offHeapALT.setQualityTarget(qualityTarget);
+                assertSameMatching(heap.findApproximateIntMatching(eps), offHeapALT.findApproximateIntMatching(eps));
+                assertEquals(heap.getRoundCount(), offHeapALT.getRoundCount());
+            }
+            WeightedALT heap = new WeightedALT(edgeWeights, sides);
+            WeightedALT offHeapWeighted = new WeightedALT(edgeWeights, sides, offHeap);
+            assertSameMatching(heap.findApproximateIntMatching(eps), offHeapWeighted.findApproximateIntMatching(eps));
+            assertEquals(heap.getRoundCount(), offHeapWeighted.getRoundCount());
+            assertEquals(heap.getMatchingWeight(), offHeapWeighted.getMatchingWeight(), 1e-9);
+        }
+    }
+
+    @Test
+    void testMcGregorGivesTheSameResultOffHeap() {
+        DefaultEdgeStream stream = new DefaultEdgeStream(new ArrayList<>(GraphUtils.generateRandomGraph(120, 0.05, 5).edgeSet()));
+        PassBudget budget = PassBudget.unlimited().withMaxPhases(5);
+        for (McGregor.Engine engine : McGregor.Engine.values()) {
+            for (boolean sharedScan : new boolean[] {false, true}) {
+                McGregor heap = new McGregor(stream);
+                heap.setEngine(engine);
+                heap.setSharedScan(sharedScan);
+                McGregor offHeapMcGregor = new McGregor(stream);
+                offHeapMcGregor.setEngine(engine);
+                offHeapMcGregor.setSharedScan(sharedScan);
+                offHeapMcGregor.setVertexStore(VertexStore.offHeap(4));
+                assertSameMatching(heap.findApproximateIntMatching(0.5, budget),
+                        offHeapMcGregor.findApproximateIntMatching(0.5, budget));
+                assertEquals(heap.getPassCount(), offHeapMcGregor.getPassCount());
+            }
+        }
+    }
+
+    private static void assertSameMatching(IntMatching expected, IntMatching actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int v = 0; v < expected.vertexCount(); v++) {
+            assertEquals(expected.mate(v), actual.mate(v));
+        }
+    }
+}
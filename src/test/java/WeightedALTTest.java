@@ -0,0 +1,162 @@
+import org.javatuples.Pair;
+import org.jgrapht.Graph;
+import org.jgrapht.alg.matching.MaximumWeightBipartiteMatching;
+import org.jgrapht.generate.GnpRandomBipartiteGraphGenerator;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.DefaultUndirectedWeightedGraph;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeightedALTTest {
+    @Test
+    void testUnitWeightsRunALT() {
+        Pair<Graph<Integer, DefaultEdge>, GnpRandomBipartiteGraphGenerator<Integer, DefaultEdge>> pair = GraphUtils.generateRandomBipartiteGraph(500, 0.01, 42);
+        DefaultEdgeStream stream = new DefaultEdgeStream(new ArrayList<>(pair.getValue0().edgeSet()));
+        double[] ones = new double[(int) stream.size()];
+        Arrays.fill(ones, 1.0);
+        double eps = 1.0 / 5;
+        IntMatching expected = new ALT(stream).findApproximateIntMatching(eps);
+        WeightedALT weighted = new WeightedALT(new EdgeWeights(stream, ones));
+        IntMatching matching = weighted.findApproximateIntMatching(eps);
+        for (int v = 0; v < stream.vertexCount(); v++) {
+            assertEquals(expected.mate(v), matching.mate(v));
+        }
+        assertEquals(matching.size(), weighted.getMatchingWeight());
+        assertThrows(IllegalArgumentException.class, () -> new EdgeWeights(stream, new double[1]));
+    }
+
+    @Test
+    void testWeightWithinEpsOfMaximum() {
+        Pair<Graph<Integer, DefaultEdge>, GnpRandomBipartiteGraphGenerator<Integer, DefaultEdge>> pair = GraphUtils.generateRandomBipartiteGraph(200, 0.03, 42);
+        // Random integer weights between 1 and 100, and a weighted copy of the graph without its isolated vertices
+        Graph<Integer, DefaultEdge> original = pair.getValue0();
+        Map<DefaultEdge, Double> weights = new HashMap<>();
+        Graph<Integer, DefaultEdge> graph = new DefaultUndirectedWeightedGraph<>(DefaultEdge.class);
+        Random random = new Random(42);
+        for (DefaultEdge edge : original.edgeSet()) {
+            int source = original.getEdgeSource(edge);
+            int target = original.getEdgeTarget(edge);
+            weights.put(edge, 1.0 + random.nextInt(100));
+            graph.addVertex(source);
+            graph.addVertex(target);
+            graph.setEdgeWeight(graph.addEdge(source, target), weights.get(edge));
+        }
+        Set<Integer> bidders = new HashSet<>(pair.getValue1().getFirstPartition());
+        Set<Integer> items = new HashSet<>(pair.getValue1().getSecondPartition());
+        bidders.retainAll(graph.vertexSet());
+        items.retainAll(graph.vertexSet());
+        double maxWeight = new MaximumWeightBipartiteMatching<>(graph, bidders, items).getMatching().getWeight();
+        DefaultEdgeStream stream = new DefaultEdgeStream(new ArrayList<>(original.edgeSet()));
+        WeightedALT alt = new WeightedALT(EdgeWeights.of(stream, weights::get), bidders, items);
+        for (double eps : Arrays.asList(1.0 / 5, 1.0 / 10)) {
+            Set<DefaultEdge> matching = alt.findApproximateMaxMatching(eps);
+            GraphUtils.isMatching(matching, original.edgeSet());
+            double weight = 0;
+            for (DefaultEdge edge : matching) {
+                weight += weights.get(edge);
+            }
+            assertEquals(weight, alt.getMatchingWeight(), 1e-9);
+            // The auction converged, so each matched item costs at most eps times the largest weight
+            assertTrue(alt.getRoundCount() < Math.ceil(2 / (eps * eps)));
+            assertTrue(weight >= maxWeight - eps * 100 * matching.size());
+            assertTrue(weight >= (1 - eps) * maxWeight);
+        }
+    }
+
+    @Test
+    void testRoundCapSufficesOnSmallGraphs() {
+        for (int seed = 0; seed < 20; seed++) {
+            int n = 20 + 2 * seed;
+            Pair<Graph<Integer, DefaultEdge>, GnpRandomBipartiteGraphGenerator<Integer, DefaultEdge>> pair = GraphUtils.generateRandomBipartiteGraph(n, 4.0 / n, seed);
+            Graph<Integer, DefaultEdge> original = pair.getValue0();
+            // Uniform, heavy-tailed and nearly equal weights
+            for (int distribution = 0; distribution < 3; distribution++) {
+                Random random = new Random(seed);
+                Map<DefaultEdge, Double> weights = new HashMap<>();
+                Graph<Integer, DefaultEdge> graph = new DefaultUndirectedWeightedGraph<>(DefaultEdge.class);
+                for (DefaultEdge edge : original.edgeSet()) {
+                    double weight = (distribution == 0) ? 1 + random.nextInt(100)
+                            : (distribution == 1) ? 1 + 1000 * Math.pow(random.nextDouble(), 4) : 1 + random.nextInt(3);
+                    weights.put(edge, weight);
+                    int source = original.getEdgeSource(edge);
+                    int target = original.getEdgeTarget(edge);
+                    graph.addVertex(source);
+                    graph.addVertex(target);
+                    graph.setEdgeWeight(graph.addEdge(source, target), weight);
+                }
+                Set<Integer> bidders = new HashSet<>(pair.getValue1().getFirstPartition());
+                Set<Integer> items = new HashSet<>(pair.getValue1().getSecondPartition());
+                bidders.retainAll(graph.vertexSet());
+                items.retainAll(graph.vertexSet());
+                double maxWeight = new MaximumWeightBipartiteMatching<>(graph, bidders, items).getMatching().getWeight();
+                DefaultEdgeStream stream = new DefaultEdgeStream(new ArrayList<>(original.edgeSet()));
+                EdgeWeights edgeWeights = EdgeWeights.of(stream, weights::get);
+                WeightedALT alt = new WeightedALT(edgeWeights, bidders, items);
+                for (double eps : Arrays.asList(1.0 / 2, 1.0 / 5, 1.0 / 10)) {
+                    IntMatching matching = alt.findApproximateIntMatching(eps);
+                    assertTrue(alt.getRoundCount() <= Math.ceil(2 / (eps * eps)));
+                    assertTrue(alt.getMatchingWeight() >= maxWeight - eps * edgeWeights.maxWeight() * matching.size() - 1e-9);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testQualityTargetUsesTheWeightedDual() {
+        /* Bidders 0 to 4 and items 5 to 9. Bidders 0 and 1 both prefer item 5, and the maximum-weight matching gives
+         * it to bidder 1 and item 6 to bidder 0; bidders 2 to 4 each have one light edge. The first round allocates 4
+         * of the 5 bidders, item 5 going to bidder 0, for a weight of 0.103. The cardinality dual after that round is
+         * about 5.2, so comparing sizes would stop there (4 >= 0.75 * 5.2); the weighted dual is about 0.275. */
+        ArrayEdgeStream stream = new ArrayEdgeStream.Builder().addEdge(0, 5).addEdge(1, 5).addEdge(0, 6)
+                .addEdge(2, 7).addEdge(3, 8).addEdge(4, 9).build();
+        EdgeWeights weights = new EdgeWeights(stream, new double[] {0.1, 0.1, 0.0999, 0.001, 0.001, 0.001});
+        double eps = 0.25;
+        WeightedALT alt = new WeightedALT(weights, Bipartition.split(10, 5));
+        alt.setQualityTarget(true);
+        IntMatching matching = alt.findApproximateIntMatching(eps);
+        assertEquals(6, matching.mate(0));
+        assertEquals(5, matching.mate(1));
+        assertEquals(0.2029, alt.getMatchingWeight(), 1e-9);
+        assertTrue(alt.getRoundCount() > 1);
+    }
+
+    @Test
+    void testRunsLikeALTWithListenerStoreAndBudget() {
+        Pair<Graph<Integer, DefaultEdge>, GnpRandomBipartiteGraphGenerator<Integer, DefaultEdge>> pair = GraphUtils.generateRandomBipartiteGraph(200, 0.03, 7);
+        DefaultEdgeStream stream = new DefaultEdgeStream(new ArrayList<>(pair.getValue0().edgeSet()));
+        double[] weights = new double[(int) stream.size()];
+        Random random = new Random(7);
+        for (int p = 0; p < weights.length; p++) {
+            weights[p] = 1 + random.nextInt(20);
+        }
+        EdgeWeights edgeWeights = new EdgeWeights(stream, weights);
+        double eps = 1.0 / 5;
+        WeightedALT heap = new WeightedALT(edgeWeights);
+        MatchingMetrics metrics = new MatchingMetrics();
+        heap.setListener(metrics);
+        IntMatching expected = heap.findApproximateIntMatching(eps);
+        assertEquals(heap.getRoundCount(), metrics.getRoundMatchingSizes().size());
+        assertEquals(2L * heap.getRoundCount(), metrics.getPasses());
+
+        WeightedALT offHeap = new WeightedALT(edgeWeights, Bipartition.detect(stream), VertexStore.offHeap(5));
+        IntMatching matching = offHeap.findApproximateIntMatching(eps);
+        for (int v = 0; v < stream.vertexCount(); v++) {
+            assertEquals(expected.mate(v), matching.mate(v));
+        }
+        assertEquals(heap.getMatchingWeight(), offHeap.getMatchingWeight(), 1e-9);
+
+        WeightedALT parallel = new WeightedALT(edgeWeights);
+        parallel.setParallelism(ForkJoinPool.commonPool(), 4);
+        matching = parallel.findApproximateIntMatching(eps);
+        for (int v = 0; v < stream.vertexCount(); v++) {
+            assertEquals(expected.mate(v), matching.mate(v));
+        }
+
+        heap.findApproximateIntMatching(eps, PassBudget.unlimited().withMaxPhases(3));
+        assertEquals(3, heap.getRoundCount());
+    }
+}